@@ -2,36 +2,85 @@ package se.magnus.microservices.api.composite.product;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Parts that are left out, or not asked for, are left out of the JSON as well
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ProductAggregate {
     private final int productId;
     private final String name;
     private final int weight;
+    // Version of the stored product
+    private final Integer version;
     private final List<RecommendationSummary> recommendations;
     private final List<ReviewSummary> reviews;
     private final ServiceAddresses serviceAddresses;
 
+    // Only set when the recommendations and reviews are limited to the first few
+    private final Integer recommendationCount;
+    private final String recommendationsNextPage;
+    private final Integer reviewCount;
+    private final String reviewsNextPage;
+
+    // Only set when a service failed and its last known list is returned instead
+    private final Boolean recommendationsStale;
+    private final Boolean reviewsStale;
+
     public ProductAggregate() {
         productId = 0;
         name = null;
         weight = 0;
+        version = null;
         recommendations = null;
         reviews = null;
         serviceAddresses = null;
+        recommendationCount = null;
+        recommendationsNextPage = null;
+        reviewCount = null;
+        reviewsNextPage = null;
+        recommendationsStale = null;
+        reviewsStale = null;
+    }
+
+    public ProductAggregate(
+            int productId,
+            String name,
+            int weight,
+            List<RecommendationSummary> recommendations,
+            List<ReviewSummary> reviews,
+            ServiceAddresses serviceAddresses) {
+
+        this(productId, name, weight, null, recommendations, null, null, null, reviews, null, null, null,
+                serviceAddresses);
     }
 
     public ProductAggregate(
             int productId,
             String name,
             int weight,
+            Integer version,
             List<RecommendationSummary> recommendations,
+            Integer recommendationCount,
+            String recommendationsNextPage,
+            Boolean recommendationsStale,
             List<ReviewSummary> reviews,
+            Integer reviewCount,
+            String reviewsNextPage,
+            Boolean reviewsStale,
             ServiceAddresses serviceAddresses) {
 
         this.productId = productId;
         this.name = name;
         this.weight = weight;
+        this.version = version;
         this.recommendations = recommendations;
+        this.recommendationCount = recommendationCount;
+        this.recommendationsNextPage = recommendationsNextPage;
+        this.recommendationsStale = recommendationsStale;
         this.reviews = reviews;
+        this.reviewCount = reviewCount;
+        this.reviewsNextPage = reviewsNextPage;
+        this.reviewsStale = reviewsStale;
         this.serviceAddresses = serviceAddresses;
     }
 
@@ -47,14 +96,60 @@ public class ProductAggregate {
         return weight;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
     public List<RecommendationSummary> getRecommendations() {
         return recommendations;
     }
 
+    /**
+     * @return the total number of recommendations of the product, null if all of them are embedded
+     */
+    public Integer getRecommendationCount() {
+        return recommendationCount;
+    }
+
+    /**
+     * @return the path of the recommendations after the embedded ones, null if there are none
+     */
+    public String getRecommendationsNextPage() {
+        return recommendationsNextPage;
+    }
+
+    /**
+     * @return true if the recommendations are the last known ones, as the recommendation service failed
+     */
+    public Boolean getRecommendationsStale() {
+        return recommendationsStale;
+    }
+
     public List<ReviewSummary> getReviews() {
         return reviews;
     }
 
+    /**
+     * @return the total number of reviews of the product, null if all of them are embedded
+     */
+    public Integer getReviewCount() {
+        return reviewCount;
+    }
+
+    /**
+     * @return the path of the reviews after the embedded ones, null if there are none
+     */
+    public String getReviewsNextPage() {
+        return reviewsNextPage;
+    }
+
+    /**
+     * @return true if the reviews are the last known ones, as the review service failed
+     */
+    public Boolean getReviewsStale() {
+        return reviewsStale;
+    }
+
     public ServiceAddresses getServiceAddresses() {
         return serviceAddresses;
     }
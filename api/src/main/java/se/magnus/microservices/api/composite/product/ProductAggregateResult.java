@@ -0,0 +1,35 @@
+package se.magnus.microservices.api.composite.product;
+
+/**
+ * Outcome of one item of a bulk composite write, status is the HTTP status
+ * the item would have got as a single request.
+ */
+public class ProductAggregateResult {
+    private final int productId;
+    private final int status;
+    private final String message;
+
+    public ProductAggregateResult() {
+        productId = 0;
+        status = 0;
+        message = null;
+    }
+
+    public ProductAggregateResult(int productId, int status, String message) {
+        this.productId = productId;
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
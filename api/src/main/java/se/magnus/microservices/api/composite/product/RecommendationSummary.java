@@ -6,19 +6,26 @@ public class RecommendationSummary {
     private final String author;
     private final int rate;
     private final String content;
+    private final Integer version;
 
     public RecommendationSummary() {
         this.recommendationId = 0;
         this.author = null;
         this.rate = 0;
         this.content = null;
+        this.version = null;
     }
 
     public RecommendationSummary(int recommendationId, String author, int rate, String content) {
+        this(recommendationId, author, rate, content, null);
+    }
+
+    public RecommendationSummary(int recommendationId, String author, int rate, String content, Integer version) {
         this.recommendationId = recommendationId;
         this.author = author;
         this.rate = rate;
         this.content = content;
+        this.version = version;
     }
 
     public int getRecommendationId() {
@@ -37,4 +44,8 @@ public class RecommendationSummary {
         return content;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
 }
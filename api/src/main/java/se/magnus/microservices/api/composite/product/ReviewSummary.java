@@ -6,19 +6,26 @@ public class ReviewSummary {
     private final String author;
     private final String subject;
     private final String content;
+    private final Integer version;
 
     public ReviewSummary() {
         this.reviewId = 0;
         this.author = null;
         this.subject = null;
         this.content = null;
+        this.version = null;
     }
 
     public ReviewSummary(int reviewId, String author, String subject, String content) {
+        this(reviewId, author, subject, content, null);
+    }
+
+    public ReviewSummary(int reviewId, String author, String subject, String content, Integer version) {
         this.reviewId = reviewId;
         this.author = author;
         this.subject = subject;
         this.content = content;
+        this.version = version;
     }
 
     public int getReviewId() {
@@ -37,4 +44,8 @@ public class ReviewSummary {
         return content;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
 }
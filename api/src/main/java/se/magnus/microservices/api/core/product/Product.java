@@ -5,12 +5,14 @@ public class Product {
     private String name;
     private int weight;
     private String serviceAddress;
+    private Integer version;
 
     public Product() {
         productId = 0;
         name = null;
         weight = 0;
         serviceAddress = null;
+        version = null;
     }
 
     public Product(int productId, String name, int weight, String serviceAddress) {
@@ -52,4 +54,12 @@ public class Product {
         this.serviceAddress = serviceAddress;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
 }
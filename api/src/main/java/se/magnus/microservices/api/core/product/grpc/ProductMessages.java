@@ -0,0 +1,52 @@
+package se.magnus.microservices.api.core.product.grpc;
+
+import java.util.List;
+
+import se.magnus.microservices.api.core.product.Product;
+
+/**
+ * Conversions between {@link Product} and its protobuf counterpart {@link ProductMessage}.
+ */
+public final class ProductMessages {
+
+    private ProductMessages() {
+    }
+
+    public static ProductMessage toMessage(Product product) {
+        ProductMessage.Builder builder = ProductMessage.newBuilder()
+                .setProductId(product.getProductId())
+                .setWeight(product.getWeight());
+        if (product.getName() != null) {
+            builder.setName(product.getName());
+        }
+        if (product.getServiceAddress() != null) {
+            builder.setServiceAddress(product.getServiceAddress());
+        }
+        if (product.getVersion() != null) {
+            builder.setVersion(product.getVersion());
+        }
+        return builder.build();
+    }
+
+    public static Product fromMessage(ProductMessage message) {
+        Product product = new Product(
+                message.getProductId(),
+                message.hasName() ? message.getName() : null,
+                message.getWeight(),
+                message.hasServiceAddress() ? message.getServiceAddress() : null);
+        if (message.hasVersion()) {
+            product.setVersion(message.getVersion());
+        }
+        return product;
+    }
+
+    public static ProductList toMessage(List<Product> products) {
+        return ProductList.newBuilder()
+                .addAllProducts(products.stream().map(ProductMessages::toMessage).toList())
+                .build();
+    }
+
+    public static List<Product> fromMessage(ProductList message) {
+        return message.getProductsList().stream().map(ProductMessages::fromMessage).toList();
+    }
+}
@@ -7,6 +7,7 @@ public class Recommendation {
     private int rate;
     private String content;
     private String serviceAddress;
+    private Integer version;
 
     public Recommendation() {
         productId = 0;
@@ -15,6 +16,7 @@ public class Recommendation {
         rate = 0;
         content = null;
         serviceAddress = null;
+        version = null;
     }
 
     public Recommendation(
@@ -81,4 +83,12 @@ public class Recommendation {
         this.serviceAddress = serviceAddress;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
 }
@@ -0,0 +1,72 @@
+package se.magnus.microservices.api.core.recommendation.grpc;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+
+/**
+ * Conversions between {@link Recommendation} and its protobuf counterpart {@link RecommendationMessage}.
+ */
+public final class RecommendationMessages {
+
+    private RecommendationMessages() {
+    }
+
+    public static RecommendationMessage toMessage(Recommendation recommendation) {
+        RecommendationMessage.Builder builder = RecommendationMessage.newBuilder()
+                .setProductId(recommendation.getProductId())
+                .setRecommendationId(recommendation.getRecommendationId())
+                .setRate(recommendation.getRate());
+        if (recommendation.getAuthor() != null) {
+            builder.setAuthor(recommendation.getAuthor());
+        }
+        if (recommendation.getContent() != null) {
+            builder.setContent(recommendation.getContent());
+        }
+        if (recommendation.getServiceAddress() != null) {
+            builder.setServiceAddress(recommendation.getServiceAddress());
+        }
+        if (recommendation.getVersion() != null) {
+            builder.setVersion(recommendation.getVersion());
+        }
+        return builder.build();
+    }
+
+    public static Recommendation fromMessage(RecommendationMessage message) {
+        Recommendation recommendation = new Recommendation(
+                message.getProductId(),
+                message.getRecommendationId(),
+                message.hasAuthor() ? message.getAuthor() : null,
+                message.getRate(),
+                message.hasContent() ? message.getContent() : null,
+                message.hasServiceAddress() ? message.getServiceAddress() : null);
+        if (message.hasVersion()) {
+            recommendation.setVersion(message.getVersion());
+        }
+        return recommendation;
+    }
+
+    public static RecommendationList toMessage(List<Recommendation> recommendations) {
+        return RecommendationList.newBuilder()
+                .addAllRecommendations(recommendations.stream().map(RecommendationMessages::toMessage).toList())
+                .build();
+    }
+
+    public static List<Recommendation> fromMessage(RecommendationList message) {
+        return message.getRecommendationsList().stream().map(RecommendationMessages::fromMessage).toList();
+    }
+
+    public static RecommendationsByProductId toMessage(Map<Integer, List<Recommendation>> recommendations) {
+        RecommendationsByProductId.Builder builder = RecommendationsByProductId.newBuilder();
+        recommendations.forEach((productId, list) -> builder.putRecommendations(productId, toMessage(list)));
+        return builder.build();
+    }
+
+    public static Map<Integer, List<Recommendation>> fromMessage(RecommendationsByProductId message) {
+        Map<Integer, List<Recommendation>> recommendations = new LinkedHashMap<>();
+        message.getRecommendationsMap().forEach((productId, list) -> recommendations.put(productId, fromMessage(list)));
+        return recommendations;
+    }
+}
@@ -7,6 +7,7 @@ public class Review {
     private String subject;
     private String content;
     private String serviceAddress;
+    private Integer version;
 
     public Review() {
         productId = 0;
@@ -15,6 +16,7 @@ public class Review {
         subject = null;
         content = null;
         serviceAddress = null;
+        version = null;
     }
 
     public Review(
@@ -81,4 +83,12 @@ public class Review {
         this.serviceAddress = serviceAddress;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
 }
@@ -0,0 +1,74 @@
+package se.magnus.microservices.api.core.review.grpc;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.magnus.microservices.api.core.review.Review;
+
+/**
+ * Conversions between {@link Review} and its protobuf counterpart {@link ReviewMessage}.
+ */
+public final class ReviewMessages {
+
+    private ReviewMessages() {
+    }
+
+    public static ReviewMessage toMessage(Review review) {
+        ReviewMessage.Builder builder = ReviewMessage.newBuilder()
+                .setProductId(review.getProductId())
+                .setReviewId(review.getReviewId());
+        if (review.getAuthor() != null) {
+            builder.setAuthor(review.getAuthor());
+        }
+        if (review.getSubject() != null) {
+            builder.setSubject(review.getSubject());
+        }
+        if (review.getContent() != null) {
+            builder.setContent(review.getContent());
+        }
+        if (review.getServiceAddress() != null) {
+            builder.setServiceAddress(review.getServiceAddress());
+        }
+        if (review.getVersion() != null) {
+            builder.setVersion(review.getVersion());
+        }
+        return builder.build();
+    }
+
+    public static Review fromMessage(ReviewMessage message) {
+        Review review = new Review(
+                message.getProductId(),
+                message.getReviewId(),
+                message.hasAuthor() ? message.getAuthor() : null,
+                message.hasSubject() ? message.getSubject() : null,
+                message.hasContent() ? message.getContent() : null,
+                message.hasServiceAddress() ? message.getServiceAddress() : null);
+        if (message.hasVersion()) {
+            review.setVersion(message.getVersion());
+        }
+        return review;
+    }
+
+    public static ReviewList toMessage(List<Review> reviews) {
+        return ReviewList.newBuilder()
+                .addAllReviews(reviews.stream().map(ReviewMessages::toMessage).toList())
+                .build();
+    }
+
+    public static List<Review> fromMessage(ReviewList message) {
+        return message.getReviewsList().stream().map(ReviewMessages::fromMessage).toList();
+    }
+
+    public static ReviewsByProductId toMessage(Map<Integer, List<Review>> reviews) {
+        ReviewsByProductId.Builder builder = ReviewsByProductId.newBuilder();
+        reviews.forEach((productId, list) -> builder.putReviews(productId, toMessage(list)));
+        return builder.build();
+    }
+
+    public static Map<Integer, List<Review>> fromMessage(ReviewsByProductId message) {
+        Map<Integer, List<Review>> reviews = new LinkedHashMap<>();
+        message.getReviewsMap().forEach((productId, list) -> reviews.put(productId, fromMessage(list)));
+        return reviews;
+    }
+}
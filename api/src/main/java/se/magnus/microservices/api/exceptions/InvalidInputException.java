@@ -1,18 +1,23 @@
 package se.magnus.microservices.api.exceptions;
 
+/**
+ * Mapped to 422 Unprocessable Entity. Like {@link NotFoundException} it has no stack
+ * trace, a cause keeps its own.
+ */
 public class InvalidInputException extends RuntimeException {
     public InvalidInputException() {
+        super(null, null, true, false);
     }
 
     public InvalidInputException(String message) {
-        super(message);
+        super(message, null, true, false);
     }
 
     public InvalidInputException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, true, false);
     }
 
     public InvalidInputException(Throwable cause) {
-        super(cause);
+        super(cause == null ? null : cause.toString(), cause, true, false);
     }
 }
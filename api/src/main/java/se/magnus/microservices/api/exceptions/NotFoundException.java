@@ -1,18 +1,23 @@
 package se.magnus.microservices.api.exceptions;
 
+/**
+ * Mapped to 404 Not Found. Crawlers ask for plenty of ids that do not exist, and the
+ * stack trace is never read, so it is not filled in.
+ */
 public class NotFoundException extends RuntimeException {
     public NotFoundException() {
+        super(null, null, true, false);
     }
 
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, true, false);
     }
 
     public NotFoundException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, true, false);
     }
 
     public NotFoundException(Throwable cause) {
-        super(cause);
+        super(cause == null ? null : cause.toString(), cause, true, false);
     }
 }
@@ -0,0 +1,217 @@
+package se.magnus.microservices.composite.product;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.http.ResponseEntity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import se.magnus.microservices.api.composite.product.ProductAggregate;
+import se.magnus.microservices.api.core.product.Product;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.composite.product.client.LastKnownGood;
+import se.magnus.microservices.composite.product.client.ProductService;
+import se.magnus.microservices.composite.product.client.RecommendationService;
+import se.magnus.microservices.composite.product.client.ReviewService;
+import se.magnus.microservices.util.http.ServiceUtil;
+
+/**
+ * Compares the latency distribution (see the p0.50 and p0.99 rows of the
+ * sample-time report) of a composite lookup when the three core services are
+ * called one after another and when they are called concurrently. The core
+ * services are stubs that only sleep for the configured delay.
+ *
+ * Run with: ./gradlew :microservices:product-composite-service:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class ProductCompositeServiceBenchmark {
+
+    @Param({ "sequential", "parallel" })
+    String fanOut;
+
+    @Param({ "20" })
+    int productDelayMs;
+
+    @Param({ "30" })
+    int recommendationDelayMs;
+
+    @Param({ "40" })
+    int reviewDelayMs;
+
+    private ExecutorService executor;
+    private ProductCompositeService service;
+
+    // A new productId per invocation keeps invocations from being coalesced or served from the cache
+    private final AtomicInteger nextProductId = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        executor = fanOut.equals("parallel") ? Executors.newVirtualThreadPerTaskExecutor() : new CallerRunsExecutor();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new ProductCompositeService(new ServiceUtil("0"), productService(), recommendationService(),
+                reviewService(), executor, meterRegistry,
+                new ProductAggregateCache(meterRegistry, 10_000, Duration.ofSeconds(30)),
+                new LastKnownGood(meterRegistry, 10_000, Duration.ofHours(1)), 200, 16, 0, "asc", Duration.ofSeconds(5));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public ProductAggregate getProduct() {
+        return service.getProduct(nextProductId.incrementAndGet(), null).getBody();
+    }
+
+    private ProductService productService() {
+        return new ProductService() {
+
+            @Override
+            public Product getProduct(int productId) {
+                sleep(productDelayMs);
+                return new Product(productId, "name", 1, "stub");
+            }
+
+            @Override
+            public List<Product> getProducts(List<Integer> productIds) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Product createProduct(Product product) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void deleteProduct(int productId) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private RecommendationService recommendationService() {
+        return new RecommendationService() {
+
+            @Override
+            public List<Recommendation> getRecommendations(int productId) {
+                sleep(recommendationDelayMs);
+                return List.of(new Recommendation(productId, 1, "author", 1, "content", "stub"));
+            }
+
+            @Override
+            public ResponseEntity<List<Recommendation>> getRecommendationPage(int productId, int pageSize,
+                    String pageToken, String order) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Recommendation createRecommendation(Recommendation recommendation) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void deleteRecommendations(int productId) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private ReviewService reviewService() {
+        return new ReviewService() {
+
+            @Override
+            public List<Review> getReviews(int productId) {
+                sleep(reviewDelayMs);
+                return List.of(new Review(productId, 1, "author", "subject", "content", "stub"));
+            }
+
+            @Override
+            public ResponseEntity<List<Review>> getReviewPage(int productId, int pageSize, String pageToken,
+                    String order) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Review createReview(Review review) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<Review> createReviews(List<Review> reviews) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void deleteReviews(int productId) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs every task on the submitting thread, i.e. the sequential baseline.
+     */
+    private static class CallerRunsExecutor extends AbstractExecutorService {
+
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.review.Review;
+
+/**
+ * Encode and decode time of the review and recommendation lists of a product in JSON and
+ * in Smile. The payloadBytes column of the report holds the encoded size.
+ *
+ * Run with: ./gradlew :microservices:product-composite-service:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+
+    private static final TypeReference<List<Review>> REVIEWS = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Recommendation>> RECOMMENDATIONS = new TypeReference<>() {
+    };
+
+    @Param({ "json", "smile" })
+    String format;
+
+    @Param({ "review", "recommendation" })
+    String type;
+
+    @Param({ "50" })
+    int listSize;
+
+    @Param({ "1000" })
+    int contentLength;
+
+    private ObjectMapper mapper;
+    private TypeReference<? extends List<?>> listType;
+    private List<?> list;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = format.equals("smile") ? new SmileMapper() : new ObjectMapper();
+        String content = "x".repeat(contentLength);
+        if (type.equals("review")) {
+            listType = REVIEWS;
+            list = IntStream.rangeClosed(1, listSize)
+                    .mapToObj(i -> new Review(1, i, "author " + i, "subject " + i, content, "review-service/1.2.3.4:8080"))
+                    .toList();
+        } else {
+            listType = RECOMMENDATIONS;
+            list = IntStream.rangeClosed(1, listSize)
+                    .mapToObj(i -> new Recommendation(1, i, "author " + i, i % 5, content, "recommendation-service/1.2.3.4:8080"))
+                    .toList();
+        }
+        encoded = mapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize payloadSize) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(list);
+        payloadSize.payloadBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public List<?> decode() throws IOException {
+        return mapper.readValue(encoded, listType);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+        }
+    }
+}
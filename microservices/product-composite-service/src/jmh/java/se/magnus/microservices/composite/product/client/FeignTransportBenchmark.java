@@ -0,0 +1,124 @@
+package se.magnus.microservices.composite.product.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Time to complete 1000 concurrent GETs against a local Reactor Netty server, which like
+ * the core services accepts both HTTP/1.1 and h2c, with the HttpURLConnection based
+ * default Feign client and with the pooled HTTP/1.1 and h2c transports of {@link FeignTransports}.
+ *
+ * Run with: ./gradlew :microservices:product-composite-service:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeignTransportBenchmark {
+
+    private static final String PRODUCT_JSON = "{\"productId\":1,\"name\":\"name\",\"weight\":1,\"serviceAddress\":\"stub\"}";
+
+    @Param({ "default", "http1", "h2c" })
+    String transport;
+
+    @Param({ "1000" })
+    int concurrentRequests;
+
+    @Param({ "200" })
+    int maxConnections;
+
+    private DisposableServer server;
+    private Client client;
+    private ExecutorService executor;
+    private String url;
+    private final Request.Options options = new Request.Options(2, TimeUnit.SECONDS, 30, TimeUnit.SECONDS, false);
+
+    @Setup
+    public void setUp() {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .route(routes -> routes.get("/product/{productId}", (request, response) -> response
+                        .header("Content-Type", "application/json")
+                        .sendString(Mono.just(PRODUCT_JSON))))
+                .bindNow();
+        url = "http://localhost:" + server.port() + "/product/1";
+
+        if (transport.equals("default")) {
+            client = new Client.Default(null, null);
+        } else {
+            StandardEnvironment environment = new StandardEnvironment();
+            environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                    "app.transport.protocol", transport,
+                    "app.transport.max-connections", Integer.toString(maxConnections))));
+            client = new RoutingClient(new FeignTransports(environment, new SimpleMeterRegistry()));
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        if (client instanceof RoutingClient routingClient) {
+            routingClient.close();
+        }
+        server.disposeNow();
+    }
+
+    @Benchmark
+    public int concurrentGets() throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(concurrentRequests);
+        for (int i = 0; i < concurrentRequests; i++) {
+            responses.add(executor.submit(this::get));
+        }
+        int bytes = 0;
+        for (Future<Integer> response : responses) {
+            bytes += response.get();
+        }
+        return bytes;
+    }
+
+    private int get() throws IOException {
+        RequestTemplate template = new RequestTemplate();
+        template.feignTarget(new Target.HardCodedTarget<>(ProductService.class, "product-service", url));
+        Request request = Request.create(Request.HttpMethod.GET, url, Map.of(), null, UTF_8, template);
+        try (Response response = client.execute(request, options); InputStream body = response.body().asInputStream()) {
+            if (response.status() != 200) {
+                throw new IOException("Unexpected status: " + response.status());
+            }
+            return body.readAllBytes().length;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package se.magnus.microservices.composite.product.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.core.review.grpc.ReviewList;
+import se.magnus.microservices.api.core.review.grpc.ReviewMessages;
+import se.magnus.microservices.api.core.review.grpc.ReviewProductIdRequest;
+import se.magnus.microservices.api.core.review.grpc.ReviewServiceGrpc;
+
+/**
+ * Time to fetch the reviews of a product over gRPC with {@link GrpcReviewService} and
+ * over REST with the h2c transport of {@link FeignTransports} and Jackson. Both servers
+ * run in this JVM on localhost and encode the review list on every call. The in-process
+ * gRPC transport is not used as it passes messages without serializing them.
+ *
+ * Run with: ./gradlew :microservices:product-composite-service:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GrpcTransportBenchmark {
+
+    private static final TypeReference<List<Review>> REVIEWS = new TypeReference<>() {
+    };
+
+    @Param({ "rest", "grpc" })
+    String transport;
+
+    @Param({ "50" })
+    int listSize;
+
+    @Param({ "1000" })
+    int contentLength;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Request.Options options = new Request.Options(2, TimeUnit.SECONDS, 30, TimeUnit.SECONDS, false);
+    private List<Review> reviews;
+
+    private Server grpcServer;
+    private GrpcReviewService grpcClient;
+
+    private DisposableServer restServer;
+    private RoutingClient restClient;
+    private String url;
+
+    @Setup
+    public void setUp() throws IOException {
+        String content = "x".repeat(contentLength);
+        reviews = IntStream.rangeClosed(1, listSize)
+                .mapToObj(i -> new Review(1, i, "author " + i, "subject " + i, content, "review-service/1.2.3.4:8080"))
+                .toList();
+
+        if (transport.equals("grpc")) {
+            grpcServer = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                    .addService(new ReviewServiceGrpc.ReviewServiceImplBase() {
+
+                        @Override
+                        public void getReviews(ReviewProductIdRequest request,
+                                StreamObserver<ReviewList> responseObserver) {
+                            responseObserver.onNext(ReviewMessages.toMessage(reviews));
+                            responseObserver.onCompleted();
+                        }
+                    })
+                    .build()
+                    .start();
+            grpcClient = new GrpcReviewService("localhost", grpcServer.getPort());
+        } else {
+            restServer = HttpServer.create()
+                    .host("localhost")
+                    .port(0)
+                    .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                    .route(routes -> routes.get("/review", (request, response) -> response
+                            .header("Content-Type", "application/json")
+                            .sendByteArray(Mono.fromCallable(() -> mapper.writeValueAsBytes(reviews)))))
+                    .bindNow();
+            url = "http://localhost:" + restServer.port() + "/review?productId=1";
+            StandardEnvironment environment = new StandardEnvironment();
+            environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                    "app.transport.protocol", "h2c")));
+            restClient = new RoutingClient(new FeignTransports(environment, new SimpleMeterRegistry()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (grpcClient != null) {
+            grpcClient.close();
+            grpcServer.shutdownNow().awaitTermination();
+        }
+        if (restClient != null) {
+            restClient.close();
+            restServer.disposeNow();
+        }
+    }
+
+    @Benchmark
+    public List<Review> getReviews() throws IOException {
+        return transport.equals("grpc") ? grpcClient.getReviews(1) : getReviewsOverRest();
+    }
+
+    private List<Review> getReviewsOverRest() throws IOException {
+        RequestTemplate template = new RequestTemplate();
+        template.feignTarget(new Target.HardCodedTarget<>(ReviewService.class, "review-service", url));
+        Request request = Request.create(Request.HttpMethod.GET, url, Map.of(), null, UTF_8, template);
+        try (Response response = restClient.execute(request, options);
+                InputStream body = response.body().asInputStream()) {
+            if (response.status() != 200) {
+                throw new IOException("Unexpected status: " + response.status());
+            }
+            return mapper.readValue(body, REVIEWS);
+        }
+    }
+}
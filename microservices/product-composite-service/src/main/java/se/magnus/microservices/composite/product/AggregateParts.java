@@ -0,0 +1,40 @@
+package se.magnus.microservices.composite.product;
+
+import java.util.List;
+
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+
+/**
+ * The parts of a {@link se.magnus.microservices.api.composite.product.ProductAggregate}
+ * a caller asked for with the include parameter. The product itself is always included.
+ */
+record AggregateParts(boolean recommendations, boolean reviews) {
+
+    static final AggregateParts ALL = new AggregateParts(true, true);
+
+    /**
+     * @param include product, recommendations and/or reviews, all parts if null
+     */
+    static AggregateParts parse(List<String> include) {
+        if (include == null) {
+            return ALL;
+        }
+        boolean recommendations = false;
+        boolean reviews = false;
+        for (String part : include) {
+            switch (part) {
+                case "product" -> {
+                }
+                case "recommendations" -> recommendations = true;
+                case "reviews" -> reviews = true;
+                default -> throw new InvalidInputException(
+                        "Invalid include: " + part + ", expected product, recommendations or reviews");
+            }
+        }
+        return new AggregateParts(recommendations, reviews);
+    }
+
+    boolean isAll() {
+        return recommendations && reviews;
+    }
+}
@@ -0,0 +1,53 @@
+package se.magnus.microservices.composite.product;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import se.magnus.microservices.composite.product.client.RequestDeadline;
+import se.magnus.microservices.util.http.DeadlineWebFilter;
+
+/**
+ * Sets the deadline of each composite request: the budget sent by the caller, if any,
+ * capped by app.deadline.default-budget.
+ */
+@Profile("!reactive")
+@Component
+class DeadlineFilter extends OncePerRequestFilter {
+
+    private final long defaultBudgetNanos;
+
+    DeadlineFilter(@Value("${app.deadline.default-budget:5s}") Duration defaultBudget) {
+        this.defaultBudgetNanos = defaultBudget.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long budgetNanos = defaultBudgetNanos;
+        String budget = request.getHeader(DeadlineWebFilter.BUDGET_HEADER);
+        if (budget != null) {
+            try {
+                budgetNanos = Math.min(budgetNanos, Duration.ofMillis(Long.parseLong(budget)).toNanos());
+            } catch (NumberFormatException e) {
+                // Keep the default budget
+            }
+        }
+
+        RequestDeadline.set(System.nanoTime() + budgetNanos);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+}
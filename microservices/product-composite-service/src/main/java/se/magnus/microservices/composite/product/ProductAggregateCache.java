@@ -0,0 +1,69 @@
+package se.magnus.microservices.composite.product;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import se.magnus.microservices.api.composite.product.ProductAggregate;
+
+/**
+ * Bounded in-process cache of assembled product aggregates. Caffeine's
+ * W-TinyLFU policy keeps frequently read products and keeps one-off reads
+ * from evicting them. Hit, miss and eviction metrics are published as
+ * cache.* meters with the tag cache=productAggregates.
+ */
+@Component
+public class ProductAggregateCache {
+
+    private final Cache<Integer, ProductAggregate> cache;
+
+    // Bumped on every invalidation, a lookup that raced with a write must not populate the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductAggregateCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.composite.cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.composite.cache.time-to-live:30s}") Duration timeToLive) {
+
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productAggregates");
+    }
+
+    ProductAggregate getIfPresent(int productId) {
+        return cache.getIfPresent(productId);
+    }
+
+    /**
+     * Runs the loader and caches its result, unless the product was invalidated while loading
+     * or the result holds stale parts, the next lookup should try the failed service again.
+     */
+    ProductAggregate load(int productId, Supplier<ProductAggregate> loader) {
+        long loadGeneration = generation.get();
+        ProductAggregate aggregate = loader.get();
+        if (generation.get() == loadGeneration && !ProductAggregates.isStale(aggregate)) {
+            cache.put(productId, aggregate);
+            // An invalidation may have slipped in between the check and the put
+            if (generation.get() != loadGeneration) {
+                cache.asMap().remove(productId, aggregate);
+            }
+        }
+        return aggregate;
+    }
+
+    void invalidate(int productId) {
+        generation.incrementAndGet();
+        cache.invalidate(productId);
+    }
+}
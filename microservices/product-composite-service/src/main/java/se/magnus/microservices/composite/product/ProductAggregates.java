@@ -0,0 +1,268 @@
+package se.magnus.microservices.composite.product;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+
+import se.magnus.microservices.api.composite.product.ProductAggregate;
+import se.magnus.microservices.api.composite.product.ProductAggregateResult;
+import se.magnus.microservices.api.composite.product.RecommendationSummary;
+import se.magnus.microservices.api.composite.product.ReviewSummary;
+import se.magnus.microservices.api.composite.product.ServiceAddresses;
+import se.magnus.microservices.api.core.product.Product;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.composite.product.client.StaleList;
+import se.magnus.microservices.util.http.ETags;
+import se.magnus.microservices.util.http.PageToken;
+
+/**
+ * Assembles a {@link ProductAggregate} from the responses of the core services,
+ * shared by the servlet and the reactive composite controllers.
+ */
+final class ProductAggregates {
+
+    private ProductAggregates() {
+    }
+
+    static ProductAggregate createProductAggregate(
+            Product product,
+            List<Recommendation> recommendations,
+            List<Review> reviews,
+            String serviceAddress) {
+
+        return createProductAggregate(product, recommendations, null, null, reviews, null, null, serviceAddress);
+    }
+
+    /**
+     * Assembles an aggregate that embeds only the first recommendations and reviews, with their
+     * total counts and the paths of the pages that follow them.
+     */
+    static ProductAggregate createProductAggregate(
+            Product product,
+            List<Recommendation> recommendations,
+            Integer recommendationCount,
+            String recommendationsNextPage,
+            List<Review> reviews,
+            Integer reviewCount,
+            String reviewsNextPage,
+            String serviceAddress) {
+
+        // 1. Setup product info
+        int productId = product.getProductId();
+        String name = product.getName();
+        int weight = product.getWeight();
+
+        // 2. Copy summary recommendation info, if available
+        List<RecommendationSummary> recommendationSummaries = (recommendations == null) ? null
+                : toRecommendationSummaries(recommendations);
+
+        // 3. Copy summary review info, if available
+        List<ReviewSummary> reviewSummaries = (reviews == null) ? null : toReviewSummaries(reviews);
+
+        // 4. Create info regarding the involved microservices addresses
+        String productAddress = product.getServiceAddress();
+        String reviewAddress = (reviews != null && reviews.size() > 0) ? reviews.get(0).getServiceAddress() : "";
+        String recommendationAddress = (recommendations != null && recommendations.size() > 0)
+                ? recommendations.get(0).getServiceAddress()
+                : "";
+        ServiceAddresses serviceAddresses = new ServiceAddresses(serviceAddress, productAddress, reviewAddress,
+                recommendationAddress);
+
+        // 5. Mark the lists that a fallback served from the last known ones
+        Boolean recommendationsStale = StaleList.isStale(recommendations) ? Boolean.TRUE : null;
+        Boolean reviewsStale = StaleList.isStale(reviews) ? Boolean.TRUE : null;
+
+        return new ProductAggregate(productId, name, weight, product.getVersion(),
+                recommendationSummaries, recommendationCount, recommendationsNextPage, recommendationsStale,
+                reviewSummaries, reviewCount, reviewsNextPage, reviewsStale,
+                serviceAddresses);
+    }
+
+    /**
+     * @return true if a part of the aggregate is a last known list instead of a fresh one
+     */
+    static boolean isStale(ProductAggregate aggregate) {
+        return aggregate.getRecommendationsStale() != null || aggregate.getReviewsStale() != null;
+    }
+
+    /**
+     * @return the aggregate without the parts that were not asked for
+     */
+    static ProductAggregate project(ProductAggregate aggregate, AggregateParts parts) {
+        return new ProductAggregate(aggregate.getProductId(), aggregate.getName(), aggregate.getWeight(),
+                aggregate.getVersion(),
+                parts.recommendations() ? aggregate.getRecommendations() : null,
+                parts.recommendations() ? aggregate.getRecommendationCount() : null,
+                parts.recommendations() ? aggregate.getRecommendationsNextPage() : null,
+                parts.recommendations() ? aggregate.getRecommendationsStale() : null,
+                parts.reviews() ? aggregate.getReviews() : null,
+                parts.reviews() ? aggregate.getReviewCount() : null,
+                parts.reviews() ? aggregate.getReviewsNextPage() : null,
+                parts.reviews() ? aggregate.getReviewsStale() : null,
+                aggregate.getServiceAddresses());
+    }
+
+    /**
+     * The aggregate with an ETag built from the versions of the product and of the embedded
+     * recommendations and reviews, a client that sends it back in If-None-Match gets a 304
+     * Not Modified. Without versions from the core services no ETag is sent.
+     */
+    static ResponseEntity<ProductAggregate> toResponse(ProductAggregate aggregate) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String eTag = eTag(aggregate);
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        return response.body(aggregate);
+    }
+
+    /**
+     * An entity that is deleted and created again starts over at version 0, so the fields of
+     * each part are covered next to its version. The service addresses are left out, they only
+     * tell which instances served the request.
+     */
+    static String eTag(ProductAggregate aggregate) {
+        if (aggregate.getVersion() == null) {
+            return null;
+        }
+        StringBuilder state = new StringBuilder();
+        append(state, aggregate.getProductId(), aggregate.getVersion(), aggregate.getName(), aggregate.getWeight());
+        if (aggregate.getRecommendations() != null) {
+            state.append("recommendations;");
+            for (RecommendationSummary r : aggregate.getRecommendations()) {
+                if (r.getVersion() == null) {
+                    return null;
+                }
+                append(state, r.getRecommendationId(), r.getVersion(), r.getAuthor(), r.getRate(), r.getContent());
+            }
+            append(state, aggregate.getRecommendationCount(), aggregate.getRecommendationsNextPage(),
+                    aggregate.getRecommendationsStale());
+        }
+        if (aggregate.getReviews() != null) {
+            state.append("reviews;");
+            for (ReviewSummary r : aggregate.getReviews()) {
+                if (r.getVersion() == null) {
+                    return null;
+                }
+                append(state, r.getReviewId(), r.getVersion(), r.getAuthor(), r.getSubject(), r.getContent());
+            }
+            append(state, aggregate.getReviewCount(), aggregate.getReviewsNextPage(), aggregate.getReviewsStale());
+        }
+        return ETags.of(state);
+    }
+
+    private static void append(StringBuilder state, Object... values) {
+        for (Object value : values) {
+            // Length prefixed, so no two field lists run together into the same state
+            String text = String.valueOf(value);
+            state.append(text.length()).append(':').append(text);
+        }
+        state.append(';');
+    }
+
+    static List<RecommendationSummary> toRecommendationSummaries(List<Recommendation> recommendations) {
+        return recommendations.stream()
+                .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(),
+                        r.getContent(), r.getVersion()))
+                .collect(Collectors.toList());
+    }
+
+    static List<ReviewSummary> toReviewSummaries(List<Review> reviews) {
+        return reviews.stream()
+                .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(),
+                        r.getVersion()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the total count a core service sent with a page, null if none or no page was read
+     */
+    static Integer totalCount(ResponseEntity<?> page) {
+        if (page == null) {
+            return null;
+        }
+        String totalCount = page.getHeaders().getFirst(PageToken.TOTAL_COUNT_HEADER);
+        return totalCount == null ? null : Integer.valueOf(totalCount);
+    }
+
+    /**
+     * @return the composite path of the page that follows an embedded page, null if it is the last one
+     */
+    static String nextPage(int productId, String list, ResponseEntity<?> page, int pageSize, String order) {
+        String pageToken = page == null ? null : page.getHeaders().getFirst(PageToken.NEXT_PAGE_TOKEN_HEADER);
+        return pageToken == null ? null
+                : "/product-composite/" + productId + "/" + list + "?pageSize=" + pageSize
+                        + "&order=" + order + "&pageToken=" + pageToken;
+    }
+
+    static void checkPage(int productId, int pageSize, String order) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        if (pageSize < 1) {
+            throw new InvalidInputException("Invalid pageSize: " + pageSize);
+        }
+        PageToken.isDescending(order);
+    }
+
+    /**
+     * @return the paging headers of a page from a core service, to forward with the page
+     */
+    static HttpHeaders pageHeaders(ResponseEntity<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : List.of(PageToken.NEXT_PAGE_TOKEN_HEADER, PageToken.TOTAL_COUNT_HEADER)) {
+            String value = page.getHeaders().getFirst(name);
+            if (value != null) {
+                headers.set(name, value);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * @return the outcome of a failed write in a bulk request, with the status the
+     *         failure would have been answered with had it been a single request
+     */
+    static ProductAggregateResult toFailedResult(int productId, Throwable failure) {
+        String message = failure instanceof ResponseStatusException e ? e.getReason() : failure.getMessage();
+        return new ProductAggregateResult(productId, statusOf(failure), message);
+    }
+
+    private static int statusOf(Throwable failure) {
+        if (failure instanceof InvalidInputException) {
+            return HttpStatus.UNPROCESSABLE_ENTITY.value();
+        }
+        if (failure instanceof NotFoundException) {
+            return HttpStatus.NOT_FOUND.value();
+        }
+        if (failure instanceof ResponseStatusException e) {
+            return e.getStatusCode().value();
+        }
+        if (failure instanceof FeignException e) {
+            // The status a core service answered with, 502 if it did not answer
+            return e.status() >= 400 ? e.status() : HttpStatus.BAD_GATEWAY.value();
+        }
+        if (failure instanceof WebClientResponseException e) {
+            return e.getStatusCode().value();
+        }
+        if (failure instanceof WebClientRequestException) {
+            return HttpStatus.BAD_GATEWAY.value();
+        }
+        if (failure instanceof CallNotPermittedException) {
+            return HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+}
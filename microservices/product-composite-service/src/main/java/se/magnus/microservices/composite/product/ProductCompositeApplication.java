@@ -1,5 +1,8 @@
 package se.magnus.microservices.composite.product;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
@@ -21,4 +24,12 @@ public class ProductCompositeApplication {
         return new RestTemplate();
     }
 
+    /**
+     * Runs the downstream calls of a composite request, one virtual thread per call.
+     */
+    @Bean(destroyMethod = "close")
+    ExecutorService compositeExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
 }
@@ -1,35 +1,64 @@
 package se.magnus.microservices.composite.product;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import se.magnus.microservices.api.composite.product.ProductAggregate;
+import se.magnus.microservices.api.composite.product.ProductAggregateResult;
 import se.magnus.microservices.api.composite.product.RecommendationSummary;
 import se.magnus.microservices.api.composite.product.ReviewSummary;
-import se.magnus.microservices.api.composite.product.ServiceAddresses;
 import se.magnus.microservices.api.core.product.Product;
 import se.magnus.microservices.api.core.recommendation.Recommendation;
 import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
 import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.composite.product.client.LastKnownGood;
 import se.magnus.microservices.composite.product.client.ProductService;
 import se.magnus.microservices.composite.product.client.RecommendationService;
+import se.magnus.microservices.composite.product.client.RequestDeadline;
 import se.magnus.microservices.composite.product.client.ReviewService;
+import se.magnus.microservices.composite.product.client.StaleList;
+import se.magnus.microservices.util.http.PageToken;
 import se.magnus.microservices.util.http.ServiceUtil;
 
 @Slf4j
 @Tag(name = "ProductComposite", description = "REST API for composite product information")
+@Profile("!reactive")
 @RestController
 public class ProductCompositeService {
 
@@ -37,16 +66,43 @@ public class ProductCompositeService {
     private final ProductService productService;
     private final RecommendationService recommendationService;
     private final ReviewService reviewService;
+    private final ExecutorService executor;
+    private final int maxBatchSize;
+    private final RequestCoalescer<Integer, ProductAggregate> coalescer;
+    private final ProductAggregateCache cache;
+    private final LastKnownGood lastKnownGood;
+    private final Semaphore writePermits;
+    private final int maxEmbedded;
+    private final String embeddedOrder;
 
     public ProductCompositeService(
             ServiceUtil serviceUtil,
             ProductService productService,
             RecommendationService recommendationService,
-            ReviewService reviewService) {
+            ReviewService reviewService,
+            ExecutorService compositeExecutor,
+            MeterRegistry meterRegistry,
+            ProductAggregateCache productAggregateCache,
+            LastKnownGood lastKnownGood,
+            @Value("${app.composite.max-batch-size:200}") int maxBatchSize,
+            @Value("${app.composite.write-concurrency:16}") int writeConcurrency,
+            @Value("${app.aggregate.max-embedded:20}") int maxEmbedded,
+            @Value("${app.aggregate.order:asc}") String embeddedOrder,
+            @Value("${app.deadline.default-budget:5s}") Duration defaultBudget) {
         this.serviceUtil = serviceUtil;
         this.productService = productService;
         this.recommendationService = recommendationService;
         this.reviewService = reviewService;
+        this.executor = compositeExecutor;
+        this.maxBatchSize = maxBatchSize;
+        this.coalescer = new RequestCoalescer<>("product-composite", meterRegistry, compositeExecutor, defaultBudget);
+        this.cache = productAggregateCache;
+        this.lastKnownGood = lastKnownGood;
+        this.writePermits = new Semaphore(writeConcurrency);
+        this.maxEmbedded = maxEmbedded;
+        this.embeddedOrder = embeddedOrder;
+        // Rejects an invalid app.aggregate.order at startup
+        PageToken.isDescending(embeddedOrder);
     }
 
     /**
@@ -71,34 +127,41 @@ public class ProductCompositeService {
             Product product = new Product(body.getProductId(), body.getName(), body.getWeight(), null);
             productService.createProduct(product);
 
-            if (body.getRecommendations() != null) {
-                body.getRecommendations().forEach(it -> {
-                    Recommendation recommendation = new Recommendation(body.getProductId(), it.getRecommendationId(),
-                            it.getAuthor(), it.getRate(), it.getContent(), null);
-                    recommendationService.createRecommendation(recommendation);
-                });
-            }
-
-            if (body.getReviews() != null) {
-                body.getReviews().forEach(it -> {
-                    Review review = new Review(body.getProductId(), it.getReviewId(), it.getAuthor(), it.getSubject(),
-                            it.getContent(), null);
-                    reviewService.createReview(review);
-                });
+            // Recommendations and reviews only depend on the product, create them concurrently
+            List<Future<?>> creations = new ArrayList<>();
+            nullToEmpty(body.getRecommendations()).forEach(it -> {
+                Recommendation recommendation = new Recommendation(body.getProductId(), it.getRecommendationId(),
+                        it.getAuthor(), it.getRate(), it.getContent(), null);
+                creations.add(executor.submit(() -> recommendationService.createRecommendation(recommendation)));
+            });
+            // The reviews are inserted in batches by one request
+            List<Review> reviews = nullToEmpty(body.getReviews()).stream()
+                    .map(it -> new Review(body.getProductId(), it.getReviewId(), it.getAuthor(), it.getSubject(),
+                            it.getContent(), null))
+                    .toList();
+            if (!reviews.isEmpty()) {
+                creations.add(executor.submit(() -> reviewService.createReviews(reviews)));
             }
+            awaitAll(creations);
 
             log.debug("createCompositeProduct: composite entities created for productId: {}", body.getProductId());
         } catch (Exception e) {
             log.warn("createCompositeProduct failed", e);
             throw e;
+        } finally {
+            cache.invalidate(body.getProductId());
+            coalescer.invalidate(body.getProductId());
+            lastKnownGood.invalidate(body.getProductId());
         }
     }
 
     /**
-     * Sample usage: "curl $HOST:$PORT/product-composite/1".
+     * Sample usage: "curl $HOST:$PORT/product-composite/1?include=product,reviews".
      *
      * @param productId Id of the product
-     * @return the composite product info, if found, else null
+     * @param include The parts of the aggregate to return, out of product, recommendations and reviews.
+     *                All of them if left out. The product is always returned.
+     * @return the composite product info, if found, else null, with an ETag of the versions it was built from
      */
     @Operation(
         summary = "${api.product-composite.get-composite-product.description}",
@@ -106,58 +169,282 @@ public class ProductCompositeService {
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "304", description = "${api.responseCodes.notModified.description}"),
             @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
             @ApiResponse(responseCode = "404", description = "${api.responseCodes.notFound.description}"),
             @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
     })
     @GetMapping(value = "/product-composite/{productId}")
-    ProductAggregate getProduct(@PathVariable int productId) {
+    ResponseEntity<ProductAggregate> getProduct(@PathVariable int productId,
+            @RequestParam(value = "include", required = false) List<String> include) {
+        // A matching If-None-Match is answered with 304 Not Modified from the ETag of the response
+        return ProductAggregates.toResponse(lookupProductAggregate(productId, AggregateParts.parse(include)));
+    }
+
+    private ProductAggregate lookupProductAggregate(int productId, AggregateParts parts) {
         log.debug("getCompositeProduct: lookup a product aggregate for productId: {}", productId);
-        Product product = productService.getProduct(productId);
-        if (product == null) {
-            throw new NotFoundException("No product found for productId: " + productId);
-        }
-        List<Recommendation> recommendations = recommendationService.getRecommendations(productId);
-        List<Review> reviews = reviewService.getReviews(productId);
-        log.debug("getCompositeProduct: aggregate entity found for productId: {}", productId);
-        return createProductAggregate(product, recommendations, reviews, serviceUtil.getServiceAddress());
-    }
-
-    private ProductAggregate createProductAggregate(
-            Product product,
-            List<Recommendation> recommendations,
-            List<Review> reviews,
-            String serviceAddress) {
-
-        // 1. Setup product info
-        int productId = product.getProductId();
-        String name = product.getName();
-        int weight = product.getWeight();
-
-        // 2. Copy summary recommendation info, if available
-        List<RecommendationSummary> recommendationSummaries = (recommendations == null) ? null
-                : recommendations.stream()
-                        .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(),
-                                r.getContent()))
-                        .collect(Collectors.toList());
-
-        // 3. Copy summary review info, if available
-        List<ReviewSummary> reviewSummaries = (reviews == null) ? null
-                : reviews.stream()
-                        .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent()))
-                        .collect(Collectors.toList());
-
-        // 4. Create info regarding the involved microservices addresses
-        String productAddress = product.getServiceAddress();
-        String reviewAddress = (reviews != null && reviews.size() > 0) ? reviews.get(0).getServiceAddress() : "";
-        String recommendationAddress = (recommendations != null && recommendations.size() > 0)
-                ? recommendations.get(0).getServiceAddress()
-                : "";
-        ServiceAddresses serviceAddresses = new ServiceAddresses(serviceAddress, productAddress, reviewAddress,
-                recommendationAddress);
-
-        return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries,
-                serviceAddresses);
+        ProductAggregate cached = cache.getIfPresent(productId);
+        if (cached != null) {
+            return parts.isAll() ? cached : ProductAggregates.project(cached, parts);
+        }
+        if (!parts.isAll()) {
+            // Partial aggregates only call the services they need and are not cached
+            return fetchProductAggregate(productId, parts);
+        }
+        // Concurrent misses of the same product share one fan-out to the core services, only that
+        // fan-out populates the cache
+        return coalescer.execute(productId,
+                () -> cache.load(productId, () -> fetchProductAggregate(productId, AggregateParts.ALL)));
+    }
+
+    private ProductAggregate fetchProductAggregate(int productId, AggregateParts parts) {
+        return fetchProductAggregate(productId, executor.submit(() -> productService.getProduct(productId)), parts);
+    }
+
+    /**
+     * Reads the lists of the product concurrently with the product itself, or for a product
+     * that is already read.
+     */
+    private ProductAggregate fetchProductAggregate(int productId, Future<Product> productFuture,
+            AggregateParts parts) {
+        if (maxEmbedded > 0) {
+            return fetchBoundedProductAggregate(productId, productFuture, parts);
+        }
+        Future<List<Recommendation>> recommendationsFuture = parts.recommendations()
+                ? executor.submit(() -> recommendationService.getRecommendations(productId))
+                : null;
+        Future<List<Review>> reviewsFuture = parts.reviews()
+                ? executor.submit(() -> reviewService.getReviews(productId))
+                : null;
+        try {
+            Product product = await(productFuture);
+            if (product == null) {
+                throw new NotFoundException("No product found for productId: " + productId);
+            }
+            List<Recommendation> recommendations = awaitIfCalled(recommendationsFuture);
+            List<Review> reviews = awaitIfCalled(reviewsFuture);
+            rememberLastKnownGood(productId, recommendations, reviews);
+            log.debug("getCompositeProduct: aggregate entity found for productId: {}", productId);
+            return ProductAggregates.createProductAggregate(product, recommendations, reviews,
+                    serviceUtil.getServiceAddress());
+        } catch (RuntimeException e) {
+            // No aggregate will be built, stop waiting for the calls that are still running
+            cancelIfCalled(recommendationsFuture);
+            cancelIfCalled(reviewsFuture);
+            throw e;
+        }
+    }
+
+    /**
+     * Embeds the first app.aggregate.max-embedded recommendations and reviews, in
+     * app.aggregate.order, so the size of the aggregate does not grow with them.
+     */
+    private ProductAggregate fetchBoundedProductAggregate(int productId, Future<Product> productFuture,
+            AggregateParts parts) {
+        Future<ResponseEntity<List<Recommendation>>> recommendationsFuture = parts.recommendations()
+                ? executor.submit(() -> recommendationService.getRecommendationPage(productId, maxEmbedded, null,
+                        embeddedOrder))
+                : null;
+        Future<ResponseEntity<List<Review>>> reviewsFuture = parts.reviews()
+                ? executor.submit(() -> reviewService.getReviewPage(productId, maxEmbedded, null, embeddedOrder))
+                : null;
+        try {
+            Product product = await(productFuture);
+            if (product == null) {
+                throw new NotFoundException("No product found for productId: " + productId);
+            }
+            ResponseEntity<List<Recommendation>> recommendations = awaitPageOrLastKnown(recommendationsFuture,
+                    () -> lastKnownGood.getRecommendations(productId));
+            ResponseEntity<List<Review>> reviews = awaitPageOrLastKnown(reviewsFuture,
+                    () -> lastKnownGood.getReviews(productId));
+            rememberLastKnownGood(productId, recommendations == null ? null : nullToEmpty(recommendations.getBody()),
+                    reviews == null ? null : nullToEmpty(reviews.getBody()));
+            log.debug("getCompositeProduct: bounded aggregate entity found for productId: {}", productId);
+            return ProductAggregates.createProductAggregate(product,
+                    recommendations == null ? null : nullToEmpty(recommendations.getBody()),
+                    ProductAggregates.totalCount(recommendations),
+                    ProductAggregates.nextPage(productId, "recommendations", recommendations, maxEmbedded,
+                            embeddedOrder),
+                    reviews == null ? null : nullToEmpty(reviews.getBody()),
+                    ProductAggregates.totalCount(reviews),
+                    ProductAggregates.nextPage(productId, "reviews", reviews, maxEmbedded, embeddedOrder),
+                    serviceUtil.getServiceAddress());
+        } catch (RuntimeException e) {
+            cancelIfCalled(recommendationsFuture);
+            cancelIfCalled(reviewsFuture);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the first page of a list. If its service fails the last known first page is
+     * embedded instead, as a {@link StaleList} without a count or a next page, the same way the
+     * fallbacks serve the full lists. Invalid input, a missing product and an exceeded deadline
+     * still fail the request.
+     */
+    private static <T> ResponseEntity<List<T>> awaitPageOrLastKnown(Future<ResponseEntity<List<T>>> future,
+            Supplier<List<T>> lastKnown) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return await(future);
+        } catch (InvalidInputException | NotFoundException | ResponseStatusException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.info("First page failed, embeds the last known one: {}", e.getMessage());
+            return ResponseEntity.ok(lastKnown.get());
+        }
+    }
+
+    // Kept for the fallbacks to serve when the service fails later on, stale lists are not kept
+    private void rememberLastKnownGood(int productId, List<Recommendation> recommendations, List<Review> reviews) {
+        if (recommendations != null) {
+            lastKnownGood.putRecommendations(productId, recommendations);
+        }
+        if (reviews != null) {
+            lastKnownGood.putReviews(productId, reviews);
+        }
+    }
+
+    private static <T> T awaitIfCalled(Future<T> future) {
+        return future == null ? null : await(future);
+    }
+
+    private static void cancelIfCalled(Future<?> future) {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Sample usage: "curl -i $HOST:$PORT/product-composite/1/recommendations?pageSize=20".
+     *
+     * @param productId Id of the product
+     * @param pageSize Maximum number of recommendations in the page
+     * @param pageToken Token of the page, from the previous response, none for the first page
+     * @param order asc or desc, the order of the recommendationIds
+     * @return a page of the recommendations of the product
+     */
+    @Operation(
+        summary = "${api.product-composite.get-composite-recommendations.description}",
+        description = "${api.product-composite.get-composite-recommendations.notes}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @GetMapping(value = "/product-composite/{productId}/recommendations")
+    ResponseEntity<List<RecommendationSummary>> getRecommendations(@PathVariable int productId,
+            @RequestParam int pageSize, @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "asc") String order) {
+        ProductAggregates.checkPage(productId, pageSize, order);
+        ResponseEntity<List<Recommendation>> page = recommendationService.getRecommendationPage(productId, pageSize,
+                pageToken, order);
+        return ResponseEntity.ok()
+                .headers(ProductAggregates.pageHeaders(page))
+                .body(ProductAggregates.toRecommendationSummaries(nullToEmpty(page.getBody())));
+    }
+
+    /**
+     * Sample usage: "curl -i $HOST:$PORT/product-composite/1/reviews?pageSize=20".
+     *
+     * @param productId Id of the product
+     * @param pageSize Maximum number of reviews in the page
+     * @param pageToken Token of the page, from the previous response, none for the first page
+     * @param order asc or desc, the order of the reviewIds
+     * @return a page of the reviews of the product
+     */
+    @Operation(
+        summary = "${api.product-composite.get-composite-reviews.description}",
+        description = "${api.product-composite.get-composite-reviews.notes}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @GetMapping(value = "/product-composite/{productId}/reviews")
+    ResponseEntity<List<ReviewSummary>> getReviews(@PathVariable int productId, @RequestParam int pageSize,
+            @RequestParam(required = false) String pageToken, @RequestParam(defaultValue = "asc") String order) {
+        ProductAggregates.checkPage(productId, pageSize, order);
+        ResponseEntity<List<Review>> page = reviewService.getReviewPage(productId, pageSize, pageToken, order);
+        return ResponseEntity.ok()
+                .headers(ProductAggregates.pageHeaders(page))
+                .body(ProductAggregates.toReviewSummaries(nullToEmpty(page.getBody())));
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/product-composite?ids=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the composite product info keyed by productId, in the requested order.
+     *         Products that are not found are present with a null value.
+     */
+    @Operation(
+        summary = "${api.product-composite.get-composite-products.description}",
+        description = "${api.product-composite.get-composite-products.notes}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @GetMapping(value = "/product-composite", params = "ids")
+    Map<Integer, ProductAggregate> getProducts(@RequestParam("ids") List<Integer> productIds) {
+        log.debug("getCompositeProducts: lookup product aggregates for {} productIds", productIds.size());
+        if (productIds.size() > maxBatchSize) {
+            throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + maxBatchSize);
+        }
+
+        List<Integer> ids = productIds.stream().distinct().toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        // One request for the products. The lists are read per product like for a single product, the
+        // first page of each by default, so no product can push the batch over a core service's limit
+        Map<Integer, Product> products = await(executor.submit(() -> productService.getProducts(ids))).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity(), (first, second) -> first));
+        Map<Integer, Future<ProductAggregate>> aggregateFutures = new LinkedHashMap<>();
+        products.forEach((productId, product) -> aggregateFutures.put(productId, executor.submit(
+                () -> fetchProductAggregate(productId, CompletableFuture.completedFuture(product),
+                        AggregateParts.ALL))));
+        try {
+            Map<Integer, ProductAggregate> aggregates = new LinkedHashMap<>();
+            for (Integer productId : ids) {
+                Future<ProductAggregate> aggregateFuture = aggregateFutures.get(productId);
+                aggregates.put(productId, aggregateFuture == null ? null : await(aggregateFuture));
+            }
+            log.debug("getCompositeProducts: {} of {} aggregates found", products.size(), ids.size());
+            return aggregates;
+        } catch (RuntimeException e) {
+            aggregateFutures.values().forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the future, but not past the deadline of the request.
+     */
+    private static <T> T await(Future<T> future) {
+        OptionalLong remainingNanos = RequestDeadline.remainingNanos();
+        try {
+            return remainingNanos.isPresent() ? future.get(remainingNanos.getAsLong(), TimeUnit.NANOSECONDS)
+                    : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Deadline exceeded");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -173,10 +460,127 @@ public class ProductCompositeService {
     @DeleteMapping(value = "/product-composite/{productId}")
     public void deleteProduct(@PathVariable int productId) {
         log.debug("deleteCompositeProduct: Deletes a product aggregate for productId: {}", productId);
-        productService.deleteProduct(productId);
-        recommendationService.deleteRecommendations(productId);
-        reviewService.deleteReviews(productId);
+        try {
+            awaitAll(List.of(
+                    executor.submit(() -> productService.deleteProduct(productId)),
+                    executor.submit(() -> recommendationService.deleteRecommendations(productId)),
+                    executor.submit(() -> reviewService.deleteReviews(productId))));
+        } finally {
+            cache.invalidate(productId);
+            coalescer.invalidate(productId);
+            lastKnownGood.invalidate(productId);
+        }
         log.debug("deleteCompositeProduct: aggregate entities deleted for productId: {}", productId);
     }
 
+    /**
+     * Sample usage, see below.
+     *
+     * curl -X POST $HOST:$PORT/product-composite/batch \
+     *   -H "Content-Type: application/json" --data \
+     *   '[{"productId":123,"name":"product 123","weight":123},{"productId":124,"name":"product 124","weight":124}]'
+     *
+     * @param body A JSON list of the new composite products
+     * @return the outcome for each composite product, in the posted order
+     */
+    @Operation(summary = "${api.product-composite.create-composite-products.description}", description = "${api.product-composite.create-composite-products.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @PostMapping(value = "/product-composite/batch", consumes = "application/json")
+    public List<ProductAggregateResult> createProducts(@RequestBody List<ProductAggregate> body) {
+        log.debug("createCompositeProducts: creates {} composite entities", body.size());
+        checkBatchSize(body.size());
+        return writeAll(body, ProductAggregate::getProductId, this::createProduct);
+    }
+
+    /**
+     * Sample usage: "curl -X DELETE $HOST:$PORT/product-composite?ids=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the outcome for each productId, in the requested order
+     */
+    @Operation(summary = "${api.product-composite.delete-composite-products.description}", description = "${api.product-composite.delete-composite-products.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @DeleteMapping(value = "/product-composite", params = "ids")
+    public List<ProductAggregateResult> deleteProducts(@RequestParam("ids") List<Integer> productIds) {
+        log.debug("deleteCompositeProducts: Deletes product aggregates for {} productIds", productIds.size());
+        checkBatchSize(productIds.size());
+        return writeAll(productIds.stream().distinct().toList(), Integer::intValue, this::deleteProduct);
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > maxBatchSize) {
+            throw new InvalidInputException("Too many items: " + size + ", max: " + maxBatchSize);
+        }
+    }
+
+    /**
+     * Runs the writes concurrently, at most app.composite.write-concurrency at a time
+     * across all bulk requests, and reports the outcome of each write. Writes that are not
+     * done by the deadline of the request are cancelled and reported with 504.
+     */
+    private <T> List<ProductAggregateResult> writeAll(List<T> items, ToIntFunction<T> productIdOf, Consumer<T> write) {
+        List<Future<ProductAggregateResult>> results = items.stream()
+                .map(item -> executor.submit(
+                        () -> writeWithPermit(productIdOf.applyAsInt(item), () -> write.accept(item))))
+                .toList();
+        List<ProductAggregateResult> outcomes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                outcomes.add(await(results.get(i)));
+            } catch (RuntimeException e) {
+                outcomes.add(ProductAggregates.toFailedResult(productIdOf.applyAsInt(items.get(i)), e));
+            }
+        }
+        return outcomes;
+    }
+
+    private ProductAggregateResult writeWithPermit(int productId, Runnable write) {
+        try {
+            writePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        try {
+            write.run();
+            return new ProductAggregateResult(productId, HttpStatus.OK.value(), null);
+        } catch (RuntimeException e) {
+            return ProductAggregates.toFailedResult(productId, e);
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    /**
+     * Waits for all futures, also when some of them fail, and then rethrows the first failure.
+     */
+    private static void awaitAll(List<? extends Future<?>> futures) {
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                await(future);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else if (failure != e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list == null ? List.of() : list;
+    }
 }
@@ -0,0 +1,22 @@
+package se.magnus.microservices.composite.product;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    /**
+     * web-application-type=reactive only selects WebFlux, the server is the first
+     * reactive server factory whose classes are present, in the order Tomcat, Jetty,
+     * Undertow, Netty. spring-boot-starter-web puts Tomcat on the classpath for the
+     * servlet variant, this factory keeps the reactive variant on Reactor Netty.
+     */
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,217 @@
+package se.magnus.microservices.composite.product;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import se.magnus.microservices.api.core.product.Product;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.util.http.HttpErrorInfo;
+
+/**
+ * Non-blocking counterpart of the Feign clients, used by the reactive composite.
+ */
+@Slf4j
+@Profile("reactive")
+@Component
+public class ReactiveProductCompositeIntegration {
+
+    private final WebClient webClient;
+    private final ObjectMapper mapper;
+
+    private final String productServiceUrl;
+    private final String recommendationServiceUrl;
+    private final String reviewServiceUrl;
+
+    public ReactiveProductCompositeIntegration(
+            WebClient.Builder webClientBuilder,
+            ObjectMapper mapper,
+            @Value("${app.product-service.host}") String productServiceHost,
+            @Value("${app.product-service.port}") int productServicePort,
+            @Value("${app.recommendation-service.host}") String recommendationServiceHost,
+            @Value("${app.recommendation-service.port}") int recommendationServicePort,
+            @Value("${app.review-service.host}") String reviewServiceHost,
+            @Value("${app.review-service.port}") int reviewServicePort) {
+
+        this.webClient = webClientBuilder.build();
+        this.mapper = mapper;
+
+        productServiceUrl = "http://" + productServiceHost + ":" + productServicePort + "/product";
+        recommendationServiceUrl = "http://" + recommendationServiceHost + ":" + recommendationServicePort
+                + "/recommendation";
+        reviewServiceUrl = "http://" + reviewServiceHost + ":" + reviewServicePort + "/review";
+    }
+
+    public Mono<Product> getProduct(int productId) {
+        String url = productServiceUrl + "/" + productId;
+        log.debug("Will call the getProduct API on URL: {}", url);
+
+        return webClient.get().uri(url).retrieve().bodyToMono(Product.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException)
+                .onErrorResume(ReactiveProductCompositeIntegration::findsNoProduct, error -> {
+                    log.warn("Got an exception while requesting a product, return no product: {}",
+                            error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Flux<Product> getProducts(List<Integer> productIds) {
+        String url = productServiceUrl + "?ids=" + join(productIds);
+        log.debug("Will call the getProducts API on URL: {}", url);
+
+        return webClient.get().uri(url).retrieve().bodyToFlux(Product.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException)
+                .onErrorResume(ReactiveProductCompositeIntegration::findsNoProduct, error -> {
+                    log.warn("Got an exception while requesting products, return zero products: {}",
+                            error.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    public Mono<Product> createProduct(Product body) {
+        return webClient.post().uri(productServiceUrl).bodyValue(body).retrieve().bodyToMono(Product.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    public Mono<Void> deleteProduct(int productId) {
+        return webClient.delete().uri(productServiceUrl + "/" + productId).retrieve().bodyToMono(Void.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    public Flux<Recommendation> getRecommendations(int productId) {
+        String url = recommendationServiceUrl + "?productId=" + productId;
+        log.debug("Will call the getRecommendations API on URL: {}", url);
+
+        // Return an empty result if something goes wrong to make it possible for the composite
+        // service to return partial responses
+        return webClient.get().uri(url).retrieve().bodyToFlux(Recommendation.class)
+                .onErrorResume(error -> {
+                    log.warn("Got an exception while requesting recommendations, return zero recommendations: {}",
+                            error.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    public Mono<ResponseEntity<List<Recommendation>>> getRecommendationPage(int productId, int pageSize,
+            String pageToken, String order) {
+        return webClient.get().uri(pageUri(recommendationServiceUrl, productId, pageSize, pageToken, order))
+                .retrieve().toEntityList(Recommendation.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    public Mono<Recommendation> createRecommendation(Recommendation body) {
+        return webClient.post().uri(recommendationServiceUrl).bodyValue(body).retrieve()
+                .bodyToMono(Recommendation.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    public Mono<Void> deleteRecommendations(int productId) {
+        return webClient.delete().uri(recommendationServiceUrl + "?productId=" + productId).retrieve()
+                .bodyToMono(Void.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    public Flux<Review> getReviews(int productId) {
+        String url = reviewServiceUrl + "?productId=" + productId;
+        log.debug("Will call the getReviews API on URL: {}", url);
+
+        // Return an empty result if something goes wrong to make it possible for the composite
+        // service to return partial responses
+        return webClient.get().uri(url).retrieve().bodyToFlux(Review.class)
+                .onErrorResume(error -> {
+                    log.warn("Got an exception while requesting reviews, return zero reviews: {}", error.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    public Mono<ResponseEntity<List<Review>>> getReviewPage(int productId, int pageSize, String pageToken,
+            String order) {
+        return webClient.get().uri(pageUri(reviewServiceUrl, productId, pageSize, pageToken, order))
+                .retrieve().toEntityList(Review.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    public Mono<Review> createReview(Review body) {
+        return webClient.post().uri(reviewServiceUrl).bodyValue(body).retrieve().bodyToMono(Review.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    public Flux<Review> createReviews(List<Review> body) {
+        return webClient.post().uri(reviewServiceUrl + "/batch").bodyValue(body).retrieve().bodyToFlux(Review.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    public Mono<Void> deleteReviews(int productId) {
+        return webClient.delete().uri(reviewServiceUrl + "?productId=" + productId).retrieve()
+                .bodyToMono(Void.class)
+                .onErrorMap(WebClientResponseException.class, this::handleException);
+    }
+
+    /**
+     * Like ProductServiceFallback for the Feign client, a product read that fails for another
+     * reason than invalid input finds no product, which the composite answers with 404.
+     */
+    private static boolean findsNoProduct(Throwable error) {
+        return !(error instanceof InvalidInputException || error instanceof NotFoundException);
+    }
+
+    private static String join(List<Integer> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    /**
+     * The page token comes from the caller, it is expanded as a URI variable so it is encoded
+     * and cannot add parameters of its own.
+     */
+    private static URI pageUri(String serviceUrl, int productId, int pageSize, String pageToken, String order) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(serviceUrl)
+                .queryParam("productId", productId)
+                .queryParam("pageSize", pageSize)
+                .queryParam("order", "{order}");
+        if (pageToken == null) {
+            return builder.encode().buildAndExpand(order).toUri();
+        }
+        return builder.queryParam("pageToken", "{pageToken}").encode().buildAndExpand(order, pageToken).toUri();
+    }
+
+    private Throwable handleException(WebClientResponseException ex) {
+        switch (HttpStatus.resolve(ex.getStatusCode().value())) {
+            case NOT_FOUND:
+                return new NotFoundException(getErrorMessage(ex));
+
+            case UNPROCESSABLE_ENTITY:
+                return new InvalidInputException(getErrorMessage(ex));
+
+            default:
+                log.warn("Got an unexpected HTTP error: {}, will rethrow it", ex.getStatusCode());
+                log.warn("Error body: {}", ex.getResponseBodyAsString());
+                return ex;
+        }
+    }
+
+    private String getErrorMessage(WebClientResponseException ex) {
+        try {
+            return mapper.readValue(ex.getResponseBodyAsString(), HttpErrorInfo.class).getMessage();
+        } catch (IOException ioex) {
+            return ex.getMessage();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package se.magnus.microservices.composite.product;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import se.magnus.microservices.api.composite.product.ProductAggregate;
+import se.magnus.microservices.api.composite.product.ProductAggregateResult;
+import se.magnus.microservices.api.composite.product.RecommendationSummary;
+import se.magnus.microservices.api.composite.product.ReviewSummary;
+import se.magnus.microservices.api.core.product.Product;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.util.http.PageToken;
+import se.magnus.microservices.util.http.ServiceUtil;
+
+/**
+ * WebFlux variant of {@link ProductCompositeService}, active with the "reactive" profile.
+ * Exposes the same REST API, including the batch read, the bulk writes and the pages of
+ * recommendations and reviews, errors are mapped by the GlobalControllerExceptionHandler in util.
+ */
+@Slf4j
+@Profile("reactive")
+@RestController
+public class ReactiveProductCompositeService {
+
+    private final ServiceUtil serviceUtil;
+    private final ReactiveProductCompositeIntegration integration;
+    private final int maxBatchSize;
+    private final int writeConcurrency;
+    private final int maxEmbedded;
+    private final String embeddedOrder;
+
+    public ReactiveProductCompositeService(
+            ServiceUtil serviceUtil,
+            ReactiveProductCompositeIntegration integration,
+            @Value("${app.composite.max-batch-size:200}") int maxBatchSize,
+            @Value("${app.composite.write-concurrency:16}") int writeConcurrency,
+            @Value("${app.aggregate.max-embedded:20}") int maxEmbedded,
+            @Value("${app.aggregate.order:asc}") String embeddedOrder) {
+        this.serviceUtil = serviceUtil;
+        this.integration = integration;
+        this.maxBatchSize = maxBatchSize;
+        this.writeConcurrency = writeConcurrency;
+        this.maxEmbedded = maxEmbedded;
+        this.embeddedOrder = embeddedOrder;
+        // Rejects an invalid app.aggregate.order at startup
+        PageToken.isDescending(embeddedOrder);
+    }
+
+    /**
+     * Sample usage, see below.
+     *
+     * curl -X POST $HOST:$PORT/product-composite \
+     *   -H "Content-Type: application/json" --data \
+     *   '{"productId":123,"name":"product 123","weight":123}'
+     *
+     * @param body A JSON representation of the new composite product
+     */
+    @PostMapping(value = "/product-composite", consumes = "application/json")
+    public Mono<Void> createProduct(@RequestBody ProductAggregate body) {
+        log.debug("createCompositeProduct: creates a new composite entity for productId: {}", body.getProductId());
+
+        Product product = new Product(body.getProductId(), body.getName(), body.getWeight(), null);
+
+        Flux<Recommendation> recommendations = Flux.fromIterable(nullToEmpty(body.getRecommendations()))
+                .flatMap(it -> integration.createRecommendation(new Recommendation(body.getProductId(),
+                        it.getRecommendationId(), it.getAuthor(), it.getRate(), it.getContent(), null)));
+
+        // The reviews are inserted in batches by one request
+        List<Review> reviewList = nullToEmpty(body.getReviews()).stream()
+                .map(it -> new Review(body.getProductId(), it.getReviewId(), it.getAuthor(), it.getSubject(),
+                        it.getContent(), null))
+                .toList();
+        Flux<Review> reviews = reviewList.isEmpty() ? Flux.empty() : integration.createReviews(reviewList);
+
+        return integration.createProduct(product)
+                .thenMany(Flux.merge(recommendations, reviews))
+                .then()
+                .doOnSuccess(v -> log.debug("createCompositeProduct: composite entities created for productId: {}",
+                        body.getProductId()))
+                .doOnError(e -> log.warn("createCompositeProduct failed", e));
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/product-composite/1?include=product,reviews".
+     *
+     * @param productId Id of the product
+     * @param include The parts of the aggregate to return, all of them if left out
+     * @return the composite product info, if found, else null, with an ETag of the versions it was built from
+     */
+    @GetMapping(value = "/product-composite/{productId}")
+    public Mono<ResponseEntity<ProductAggregate>> getProduct(@PathVariable int productId,
+            @RequestParam(value = "include", required = false) List<String> include) {
+        log.debug("getCompositeProduct: lookup a product aggregate for productId: {}", productId);
+        AggregateParts parts = AggregateParts.parse(include);
+        return fetchProductAggregate(productId, integration.getProduct(productId), parts)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No product found for productId: " + productId)))
+                .doOnNext(it -> log.debug("getCompositeProduct: aggregate entity found for productId: {}", productId))
+                .map(ProductAggregates::toResponse);
+    }
+
+    /**
+     * @return the aggregate of the product, empty if the product is not found
+     */
+    private Mono<ProductAggregate> fetchProductAggregate(int productId, Mono<Product> product, AggregateParts parts) {
+        if (maxEmbedded > 0) {
+            return fetchBoundedProductAggregate(productId, product, parts);
+        }
+        Mono<Optional<List<Recommendation>>> recommendations = parts.recommendations()
+                ? integration.getRecommendations(productId).collectList().map(Optional::of)
+                : Mono.just(Optional.empty());
+        Mono<Optional<List<Review>>> reviews = parts.reviews()
+                ? integration.getReviews(productId).collectList().map(Optional::of)
+                : Mono.just(Optional.empty());
+        return Mono.zip(product, recommendations, reviews)
+                .map(values -> ProductAggregates.createProductAggregate(values.getT1(), values.getT2().orElse(null),
+                        values.getT3().orElse(null), serviceUtil.getServiceAddress()));
+    }
+
+    /**
+     * Embeds the first app.aggregate.max-embedded recommendations and reviews, in
+     * app.aggregate.order, so the size of the aggregate does not grow with them.
+     */
+    private Mono<ProductAggregate> fetchBoundedProductAggregate(int productId, Mono<Product> product,
+            AggregateParts parts) {
+        Mono<Optional<ResponseEntity<List<Recommendation>>>> recommendations = parts.recommendations()
+                ? firstPage(integration.getRecommendationPage(productId, maxEmbedded, null, embeddedOrder))
+                : Mono.just(Optional.empty());
+        Mono<Optional<ResponseEntity<List<Review>>>> reviews = parts.reviews()
+                ? firstPage(integration.getReviewPage(productId, maxEmbedded, null, embeddedOrder))
+                : Mono.just(Optional.empty());
+        return Mono.zip(product, recommendations, reviews)
+                .map(values -> {
+                    ResponseEntity<List<Recommendation>> recommendationPage = values.getT2().orElse(null);
+                    ResponseEntity<List<Review>> reviewPage = values.getT3().orElse(null);
+                    return ProductAggregates.createProductAggregate(values.getT1(),
+                            recommendationPage == null ? null : nullToEmpty(recommendationPage.getBody()),
+                            ProductAggregates.totalCount(recommendationPage),
+                            ProductAggregates.nextPage(productId, "recommendations", recommendationPage, maxEmbedded,
+                                    embeddedOrder),
+                            reviewPage == null ? null : nullToEmpty(reviewPage.getBody()),
+                            ProductAggregates.totalCount(reviewPage),
+                            ProductAggregates.nextPage(productId, "reviews", reviewPage, maxEmbedded, embeddedOrder),
+                            serviceUtil.getServiceAddress());
+                });
+    }
+
+    // Return an empty first page if something goes wrong, the same partial response as for the full lists
+    private static <T> Mono<Optional<ResponseEntity<List<T>>>> firstPage(Mono<ResponseEntity<List<T>>> page) {
+        return page.map(Optional::of)
+                .onErrorResume(error -> !(error instanceof InvalidInputException), error -> {
+                    log.warn("Got an exception while requesting a first page, embeds an empty one: {}",
+                            error.getMessage());
+                    return Mono.just(Optional.of(ResponseEntity.ok(List.<T>of())));
+                });
+    }
+
+    /**
+     * Sample usage: "curl -i $HOST:$PORT/product-composite/1/recommendations?pageSize=20".
+     *
+     * @param productId Id of the product
+     * @param pageSize Maximum number of recommendations in the page
+     * @param pageToken Token of the page, from the previous response, none for the first page
+     * @param order asc or desc, the order of the recommendationIds
+     * @return a page of the recommendations of the product
+     */
+    @GetMapping(value = "/product-composite/{productId}/recommendations")
+    public Mono<ResponseEntity<List<RecommendationSummary>>> getRecommendations(@PathVariable int productId,
+            @RequestParam int pageSize, @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "asc") String order) {
+        ProductAggregates.checkPage(productId, pageSize, order);
+        return integration.getRecommendationPage(productId, pageSize, pageToken, order)
+                .map(page -> ResponseEntity.ok()
+                        .headers(ProductAggregates.pageHeaders(page))
+                        .body(ProductAggregates.toRecommendationSummaries(nullToEmpty(page.getBody()))));
+    }
+
+    /**
+     * Sample usage: "curl -i $HOST:$PORT/product-composite/1/reviews?pageSize=20".
+     *
+     * @param productId Id of the product
+     * @param pageSize Maximum number of reviews in the page
+     * @param pageToken Token of the page, from the previous response, none for the first page
+     * @param order asc or desc, the order of the reviewIds
+     * @return a page of the reviews of the product
+     */
+    @GetMapping(value = "/product-composite/{productId}/reviews")
+    public Mono<ResponseEntity<List<ReviewSummary>>> getReviews(@PathVariable int productId,
+            @RequestParam int pageSize, @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "asc") String order) {
+        ProductAggregates.checkPage(productId, pageSize, order);
+        return integration.getReviewPage(productId, pageSize, pageToken, order)
+                .map(page -> ResponseEntity.ok()
+                        .headers(ProductAggregates.pageHeaders(page))
+                        .body(ProductAggregates.toReviewSummaries(nullToEmpty(page.getBody()))));
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/product-composite?ids=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the composite product info keyed by productId, in the requested order.
+     *         Products that are not found are present with a null value.
+     */
+    @GetMapping(value = "/product-composite", params = "ids")
+    public Mono<Map<Integer, ProductAggregate>> getProducts(@RequestParam("ids") List<Integer> productIds) {
+        log.debug("getCompositeProducts: lookup product aggregates for {} productIds", productIds.size());
+        if (productIds.size() > maxBatchSize) {
+            throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + maxBatchSize);
+        }
+
+        List<Integer> ids = productIds.stream().distinct().toList();
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        // One request for the products, the lists are read per product like for a single product, the
+        // first page of each by default, so no product can push the batch over a core service's limit
+        return integration.getProducts(ids).collectMap(Product::getProductId)
+                .flatMap(products -> Flux.fromIterable(ids)
+                        .filter(products::containsKey)
+                        .flatMap(productId -> fetchProductAggregate(productId,
+                                Mono.just(products.get(productId)), AggregateParts.ALL))
+                        .collectMap(ProductAggregate::getProductId)
+                        .map(found -> {
+                            Map<Integer, ProductAggregate> aggregates = new LinkedHashMap<>();
+                            ids.forEach(productId -> aggregates.put(productId, found.get(productId)));
+                            log.debug("getCompositeProducts: {} of {} aggregates found", found.size(), ids.size());
+                            return aggregates;
+                        }));
+    }
+
+    /**
+     * Sample usage: "curl -X DELETE $HOST:$PORT/product-composite/1".
+     *
+     * @param productId Id of the product
+     */
+    @DeleteMapping(value = "/product-composite/{productId}")
+    public Mono<Void> deleteProduct(@PathVariable int productId) {
+        log.debug("deleteCompositeProduct: Deletes a product aggregate for productId: {}", productId);
+        return Mono.when(
+                integration.deleteProduct(productId),
+                integration.deleteRecommendations(productId),
+                integration.deleteReviews(productId))
+                .doOnSuccess(v -> log.debug("deleteCompositeProduct: aggregate entities deleted for productId: {}",
+                        productId));
+    }
+
+    /**
+     * Sample usage, see below.
+     *
+     * curl -X POST $HOST:$PORT/product-composite/batch \
+     *   -H "Content-Type: application/json" --data \
+     *   '[{"productId":123,"name":"product 123","weight":123},{"productId":124,"name":"product 124","weight":124}]'
+     *
+     * @param body A JSON list of the new composite products
+     * @return the outcome for each composite product, in the posted order
+     */
+    @PostMapping(value = "/product-composite/batch", consumes = "application/json")
+    public Mono<List<ProductAggregateResult>> createProducts(@RequestBody List<ProductAggregate> body) {
+        log.debug("createCompositeProducts: creates {} composite entities", body.size());
+        checkBatchSize(body.size());
+        return writeAll(body, ProductAggregate::getProductId, this::createProduct);
+    }
+
+    /**
+     * Sample usage: "curl -X DELETE $HOST:$PORT/product-composite?ids=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the outcome for each productId, in the requested order
+     */
+    @DeleteMapping(value = "/product-composite", params = "ids")
+    public Mono<List<ProductAggregateResult>> deleteProducts(@RequestParam("ids") List<Integer> productIds) {
+        log.debug("deleteCompositeProducts: Deletes product aggregates for {} productIds", productIds.size());
+        checkBatchSize(productIds.size());
+        return writeAll(productIds.stream().distinct().toList(), Integer::intValue, this::deleteProduct);
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > maxBatchSize) {
+            throw new InvalidInputException("Too many items: " + size + ", max: " + maxBatchSize);
+        }
+    }
+
+    /**
+     * Runs the writes concurrently, at most app.composite.write-concurrency at a time
+     * per bulk request, and reports the outcome of each write.
+     */
+    private <T> Mono<List<ProductAggregateResult>> writeAll(List<T> items, ToIntFunction<T> productIdOf,
+            Function<T, Mono<Void>> write) {
+        return Flux.fromIterable(items)
+                .flatMapSequential(item -> {
+                    int productId = productIdOf.applyAsInt(item);
+                    return Mono.defer(() -> write.apply(item))
+                            .thenReturn(new ProductAggregateResult(productId, HttpStatus.OK.value(), null))
+                            .onErrorResume(e -> Mono.just(ProductAggregates.toFailedResult(productId, e)));
+                }, writeConcurrency)
+                .collectList();
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+}
@@ -0,0 +1,121 @@
+package se.magnus.microservices.composite.product;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import se.magnus.microservices.composite.product.client.RequestDeadline;
+
+/**
+ * Single-flight execution of lookups: while a lookup for a key is in flight,
+ * concurrent lookups of the same key wait for and share its result instead of
+ * starting their own. The in-flight table is a ConcurrentHashMap, i.e. lock
+ * free for readers and striped per hash bin for writers. The shared lookup runs
+ * on the executor with a deadline of its own, every caller, the one that started
+ * it included, gives up at the deadline of its own request and the lookup goes on
+ * for the others. A write invalidates the key, later lookups do not join a lookup
+ * that started before it.
+ *
+ * @param <K> the lookup key
+ * @param <V> the lookup result
+ */
+class RequestCoalescer<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final long lookupBudgetNanos;
+    private final Counter executed;
+    private final Counter coalesced;
+
+    RequestCoalescer(String name, MeterRegistry registry, Executor executor, Duration lookupBudget) {
+        this.executor = executor;
+        this.lookupBudgetNanos = lookupBudget.toNanos();
+        executed = Counter.builder("composite.requests.executed")
+                .description("Lookups that were executed against the core services")
+                .tag("name", name)
+                .register(registry);
+        coalesced = Counter.builder("composite.requests.coalesced")
+                .description("Lookups that shared the result of an identical lookup already in flight")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("composite.requests.inflight", inFlight, ConcurrentHashMap::size)
+                .description("Distinct lookups currently in flight")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    V execute(K key, Supplier<V> lookup) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        try {
+            executor.execute(() -> {
+                // Not the deadline of the request that started it, it would fail the lookup for all of them
+                RequestDeadline.set(System.nanoTime() + lookupBudgetNanos);
+                // Removed before completing, a lookup made once it has returned starts a new one
+                try {
+                    V value = lookup.get();
+                    inFlight.remove(key, own);
+                    own.complete(value);
+                } catch (RuntimeException | Error e) {
+                    inFlight.remove(key, own);
+                    own.completeExceptionally(e);
+                } finally {
+                    RequestDeadline.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, own);
+            own.completeExceptionally(e);
+            throw e;
+        }
+        return await(own);
+    }
+
+    /**
+     * Detaches the lookup in flight for the key, if any, its callers still get its result.
+     */
+    void invalidate(K key) {
+        inFlight.remove(key);
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        OptionalLong remainingNanos = RequestDeadline.remainingNanos();
+        try {
+            return remainingNanos.isPresent() ? future.get(remainingNanos.getAsLong(), TimeUnit.NANOSECONDS)
+                    : future.get();
+        } catch (TimeoutException e) {
+            // Not cancelled, the lookup is shared with the other callers
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Deadline exceeded");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
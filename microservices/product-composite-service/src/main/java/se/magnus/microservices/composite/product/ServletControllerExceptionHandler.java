@@ -3,10 +3,11 @@ package se.magnus.microservices.composite.product;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.util.UrlPathHelper;
 
@@ -14,36 +15,34 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import se.magnus.microservices.api.exceptions.InvalidInputException;
 import se.magnus.microservices.api.exceptions.NotFoundException;
-import se.magnus.microservices.util.http.HttpErrorInfo;
+import se.magnus.microservices.util.http.HttpErrorBody;
 
 @Slf4j
+@Profile("!reactive")
 @RestControllerAdvice
 class ServletControllerExceptionHandler {
 
-    @ResponseStatus(NOT_FOUND)
     @ExceptionHandler(NotFoundException.class)
-    public @ResponseBody HttpErrorInfo handleNotFoundExceptions(
-            HttpServletRequest request, NotFoundException ex) {
-
-        return createHttpErrorInfo(NOT_FOUND, request, ex);
+    public ResponseEntity<byte[]> handleNotFoundExceptions(HttpServletRequest request, NotFoundException ex) {
+        return createHttpErrorBody(NOT_FOUND, request, ex);
     }
 
-    @ResponseStatus(UNPROCESSABLE_ENTITY)
     @ExceptionHandler(InvalidInputException.class)
-    public @ResponseBody HttpErrorInfo handleInvalidInputException(
-            HttpServletRequest request, InvalidInputException ex) {
-
-        return createHttpErrorInfo(UNPROCESSABLE_ENTITY, request, ex);
+    public ResponseEntity<byte[]> handleInvalidInputException(HttpServletRequest request, InvalidInputException ex) {
+        return createHttpErrorBody(UNPROCESSABLE_ENTITY, request, ex);
     }
 
-    private HttpErrorInfo createHttpErrorInfo(
+    private ResponseEntity<byte[]> createHttpErrorBody(
             HttpStatus httpStatus, HttpServletRequest request, Exception ex) {
 
-        final String path = new UrlPathHelper().getPathWithinApplication(request);
+        // The shared, read-only instance, its defaults are the ones a new UrlPathHelper has
+        final String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
         final String message = ex.getMessage();
 
         log.debug("Returning HTTP status: {} for path: {}, message: {}", httpStatus, path, message);
-        return new HttpErrorInfo(httpStatus, path, message);
+        return ResponseEntity.status(httpStatus)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(HttpErrorBody.render(httpStatus, path, message));
     }
 
 }
@@ -0,0 +1,129 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Concurrency limit of one downstream service that adapts with AIMD: a call
+ * that fails or is slower than the latency threshold multiplies the limit by
+ * the backoff ratio, a fast call made while at least half of the limit was in
+ * use raises it by one. Callers over the limit wait up to the max queue wait
+ * for a permit and are rejected after that.
+ */
+class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private int limit;
+    private int inFlight;
+    private int queued;
+
+    private final Counter rejected;
+
+    AdaptiveConcurrencyLimit(String name, MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+            double backoffRatio, Duration latencyThreshold) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = initialLimit;
+
+        Gauge.builder("composite.concurrency.limit", this, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current concurrency limit")
+                .tag("client", name)
+                .register(meterRegistry);
+        Gauge.builder("composite.concurrency.inflight", this, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Calls in flight")
+                .tag("client", name)
+                .register(meterRegistry);
+        Gauge.builder("composite.concurrency.queued", this, AdaptiveConcurrencyLimit::getQueued)
+                .description("Calls waiting for a permit")
+                .tag("client", name)
+                .register(meterRegistry);
+        rejected = Counter.builder("composite.concurrency.rejected")
+                .description("Calls rejected because the limit was reached")
+                .tag("client", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the number of calls in flight when the permit was granted, or -1 if rejected
+     */
+    int acquire(Duration maxWait) throws InterruptedException {
+        long remainingNanos = maxWait.toNanos();
+        lock.lock();
+        try {
+            if (inFlight >= limit) {
+                queued++;
+                try {
+                    while (inFlight >= limit) {
+                        if (remainingNanos <= 0) {
+                            rejected.increment();
+                            return -1;
+                        }
+                        remainingNanos = permitReleased.awaitNanos(remainingNanos);
+                    }
+                } finally {
+                    queued--;
+                }
+            }
+            return ++inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(int inFlightAtStart, long latencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+            } else if (inFlightAtStart * 2 >= limit && limit < maxLimit) {
+                // One more permit than was released, wake one more waiter
+                limit++;
+                permitReleased.signal();
+            }
+            permitReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package se.magnus.microservices.composite.product.client;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+
+import feign.RequestInterceptor;
+import feign.codec.Encoder;
+
+/**
+ * Makes the Feign clients exchange Smile, i.e. binary JSON, with the core services:
+ * request bodies are sent as Smile and Smile responses are preferred over JSON.
+ * Disabled with app.transport.prefer-smile=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.transport.prefer-smile", havingValue = "true", matchIfMissing = true)
+public class BinaryFormatConfiguration {
+
+    static final String SMILE = "application/x-jackson-smile";
+
+    @Bean
+    RequestInterceptor preferSmileInterceptor() {
+        return template -> template.header(HttpHeaders.ACCEPT, SMILE, "application/json;q=0.9");
+    }
+
+    @Bean
+    Encoder feignEncoder(ObjectFactory<HttpMessageConverters> messageConverters) {
+        Encoder springEncoder = new SpringEncoder(messageConverters);
+        return (object, bodyType, template) -> {
+            if (!template.headers().containsKey(HttpHeaders.CONTENT_TYPE)) {
+                template.header(HttpHeaders.CONTENT_TYPE, SMILE);
+            }
+            springEncoder.encode(object, bodyType, template);
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import feign.Capability;
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wraps the HTTP client of every Feign client in a {@link ConcurrencyLimitingClient},
+ * i.e. a separate adaptive bulkhead per downstream service. Disabled with
+ * app.concurrency-limit.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfiguration {
+
+    @Bean
+    Capability concurrencyLimitCapability(
+            MeterRegistry meterRegistry,
+            @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${app.concurrency-limit.min-limit:1}") int minLimit,
+            @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${app.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${app.concurrency-limit.latency-threshold:1s}") Duration latencyThreshold,
+            @Value("${app.concurrency-limit.max-queue-wait:50ms}") Duration maxQueueWait) {
+
+        return new LimitingCapability(maxQueueWait, name -> new AdaptiveConcurrencyLimit(name, meterRegistry,
+                initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold));
+    }
+
+    /**
+     * Applied before any other capability, so that e.g. each hedged attempt needs its own permit.
+     */
+    private record LimitingCapability(Duration maxQueueWait,
+            Function<String, AdaptiveConcurrencyLimit> limitFactory)
+            implements Capability, Ordered {
+
+        @Override
+        public Client enrich(Client client) {
+            return new ConcurrencyLimitingClient(client, limitFactory, maxQueueWait);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Feign client decorator that bounds the concurrent calls to each downstream
+ * service by an {@link AdaptiveConcurrencyLimit}. A call that gets no permit
+ * fails fast with a RejectedExecutionException, which the Feign circuit
+ * breaker hands to the client's fallback.
+ */
+class ConcurrencyLimitingClient implements Client {
+
+    private final Client delegate;
+    private final Function<String, AdaptiveConcurrencyLimit> limitFactory;
+    private final Duration maxQueueWait;
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+    ConcurrencyLimitingClient(Client delegate, Function<String, AdaptiveConcurrencyLimit> limitFactory,
+            Duration maxQueueWait) {
+        this.delegate = delegate;
+        this.limitFactory = limitFactory;
+        this.maxQueueWait = maxQueueWait;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String name = FeignTargets.name(request);
+        AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(name, limitFactory);
+
+        int inFlightAtStart;
+        try {
+            inFlightAtStart = limit.acquire(maxQueueWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a permit to call " + name);
+        }
+        if (inFlightAtStart < 0) {
+            throw new RejectedExecutionException("Concurrency limit reached for " + name);
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Response response = delegate.execute(request, options);
+            failed = response.status() >= 500;
+            return response;
+        } finally {
+            limit.release(inFlightAtStart, System.nanoTime() - start, failed);
+        }
+    }
+}
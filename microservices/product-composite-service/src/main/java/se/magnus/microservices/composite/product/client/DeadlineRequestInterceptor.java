@@ -0,0 +1,27 @@
+package se.magnus.microservices.composite.product.client;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.OptionalLong;
+
+import org.springframework.stereotype.Component;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import se.magnus.microservices.util.http.DeadlineWebFilter;
+
+/**
+ * Tells the core services how much of the request's time budget is left, see {@link DeadlineWebFilter}.
+ */
+@Component
+public class DeadlineRequestInterceptor implements RequestInterceptor {
+
+    @Override
+    public void apply(RequestTemplate template) {
+        OptionalLong remainingNanos = RequestDeadline.remainingNanos();
+        if (remainingNanos.isPresent()) {
+            long remainingMs = Math.max(0, NANOSECONDS.toMillis(remainingNanos.getAsLong()));
+            template.header(DeadlineWebFilter.BUDGET_HEADER, Long.toString(remainingMs));
+        }
+    }
+}
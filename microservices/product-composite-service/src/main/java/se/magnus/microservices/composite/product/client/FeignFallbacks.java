@@ -0,0 +1,42 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+
+/**
+ * Error handling shared by the fallbacks of the Feign clients.
+ */
+final class FeignFallbacks {
+
+    private FeignFallbacks() {
+    }
+
+    /**
+     * Logs the failure of a call, the 404 and 422 answers of {@link ServiceErrorDecoder} are
+     * not failures of the service and are only logged at debug level.
+     */
+    static void log(Logger log, String client, Throwable cause) {
+        if (cause instanceof NotFoundException || cause instanceof InvalidInputException) {
+            log.debug("{} answered: {}", client, cause.getMessage());
+        } else {
+            log.info("{} error: {}", client, cause.getMessage());
+        }
+    }
+
+    /**
+     * @return the exception to throw for a call that has nothing to fall back to, a call shed by
+     *         the {@link ConcurrencyLimitingClient} is answered with 503 Service Unavailable
+     */
+    static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RejectedExecutionException) {
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, cause.getMessage(), cause);
+        }
+        return cause instanceof RuntimeException exception ? exception : new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,21 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.net.URI;
+
+import feign.Request;
+
+final class FeignTargets {
+
+    private FeignTargets() {
+    }
+
+    /**
+     * @return the name of the Feign client sending the request, e.g. "review-service"
+     */
+    static String name(Request request) {
+        if (request.requestTemplate() != null && request.requestTemplate().feignTarget() != null) {
+            return request.requestTemplate().feignTarget().name();
+        }
+        return URI.create(request.url()).getHost();
+    }
+}
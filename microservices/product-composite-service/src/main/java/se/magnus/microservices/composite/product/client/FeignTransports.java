@@ -0,0 +1,111 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.io.Closeable;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.core.env.Environment;
+
+import feign.Client;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the transport of a Feign client from app.transport.* properties,
+ * which can be overridden per client under app.transport.clients.[client name].*:
+ *
+ * protocol: http1 (default) uses an Apache HttpClient 5 pool of max-connections keep-alive
+ * connections, with pool usage and lease time metrics. h2c is opt-in and sends HTTP/2 over
+ * cleartext, multiplexing all calls to the service over one connection, and falls back to
+ * HTTP/1.1 connections if the service does not accept the upgrade. The JDK HttpClient behind
+ * it manages its connections itself, max-connections and keep-alive do not apply and no pool
+ * metrics are published, only the concurrency limit bounds the calls in flight.
+ */
+@Slf4j
+class FeignTransports implements Function<String, Client>, Closeable {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final List<AutoCloseable> resources = new CopyOnWriteArrayList<>();
+
+    FeignTransports(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Client apply(String name) {
+        String protocol = property(name, "protocol", String.class, "http1");
+        Duration connectTimeout = property(name, "connect-timeout", Duration.class, Duration.ofSeconds(2));
+        log.info("Using {} transport for {}", protocol, name);
+        return switch (protocol) {
+            case "h2c" -> h2c(connectTimeout);
+            case "http1" -> pooledHttp1(name, property(name, "max-connections", Integer.class, 50),
+                    property(name, "keep-alive", Duration.class, Duration.ofMinutes(1)), connectTimeout);
+            default -> throw new IllegalArgumentException("Unknown transport protocol for " + name + ": " + protocol);
+        };
+    }
+
+    private Client h2c(Duration connectTimeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(connectTimeout)
+                .build();
+        resources.add(httpClient);
+        return new Http2Client(httpClient);
+    }
+
+    private Client pooledHttp1(String name, int maxConnections, Duration keepAlive, Duration connectTimeout) {
+        TimedConnectionManager connectionManager = new TimedConnectionManager(
+                Timer.builder("composite.transport.acquire")
+                        .description("Time spent waiting for a pooled connection")
+                        .tag("client", name)
+                        .register(meterRegistry));
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setTimeToLive(TimeValue.of(keepAlive))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .disableRedirectHandling()
+                .disableAutomaticRetries()
+                .build();
+        resources.add(httpClient);
+        return new ApacheHttp5Client(httpClient);
+    }
+
+    private <T> T property(String name, String key, Class<T> type, T defaultValue) {
+        return environment.getProperty("app.transport.clients." + name + "." + key, type,
+                environment.getProperty("app.transport." + key, type, defaultValue));
+    }
+
+    @Override
+    public void close() {
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("Failed to close Feign transport", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package se.magnus.microservices.composite.product.client;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.OptionalLong;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.AbstractStub;
+import se.magnus.microservices.util.grpc.GrpcErrors;
+
+/**
+ * Base of the gRPC clients of the core services: owns the channel to the
+ * service, applies the request deadline to each call and maps the status of a
+ * failed call back to the exception the REST client would have thrown.
+ */
+abstract class GrpcClient implements AutoCloseable {
+
+    private final ManagedChannel channel;
+
+    GrpcClient(String host, int port) {
+        this.channel = Grpc.newChannelBuilderForAddress(host, port, InsecureChannelCredentials.create()).build();
+    }
+
+    protected ManagedChannel channel() {
+        return channel;
+    }
+
+    protected static <S extends AbstractStub<S>> S withDeadline(S stub) {
+        OptionalLong remainingNanos = RequestDeadline.remainingNanos();
+        return remainingNanos.isPresent() ? stub.withDeadlineAfter(remainingNanos.getAsLong(), NANOSECONDS) : stub;
+    }
+
+    protected static RuntimeException translate(StatusRuntimeException e) {
+        if (e.getStatus().getCode() == Status.Code.DEADLINE_EXCEEDED) {
+            return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Deadline exceeded", e);
+        }
+        return GrpcErrors.fromStatusException(e);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        channel.shutdown();
+        if (!channel.awaitTermination(5, SECONDS)) {
+            channel.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package se.magnus.microservices.composite.product.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Calls the core services over gRPC instead of through the Feign clients,
+ * enabled with app.grpc.enabled=true. The Feign client beans are declared
+ * non-primary so these replace them wherever the client interfaces are injected.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+public class GrpcClientConfiguration {
+
+    @Bean
+    @Primary
+    GrpcProductService grpcProductService(
+            @Value("${app.product-service.host}") String host,
+            @Value("${app.product-service.grpc-port}") int port) {
+        return new GrpcProductService(host, port);
+    }
+
+    @Bean
+    @Primary
+    GrpcRecommendationService grpcRecommendationService(
+            @Value("${app.recommendation-service.host}") String host,
+            @Value("${app.recommendation-service.grpc-port}") int port) {
+        return new GrpcRecommendationService(host, port);
+    }
+
+    @Bean
+    @Primary
+    GrpcReviewService grpcReviewService(
+            @Value("${app.review-service.host}") String host,
+            @Value("${app.review-service.grpc-port}") int port) {
+        return new GrpcReviewService(host, port);
+    }
+}
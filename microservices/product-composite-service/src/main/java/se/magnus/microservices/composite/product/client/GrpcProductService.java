@@ -0,0 +1,67 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.List;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import se.magnus.microservices.api.core.product.Product;
+import se.magnus.microservices.api.core.product.grpc.ProductIdRequest;
+import se.magnus.microservices.api.core.product.grpc.ProductIdsRequest;
+import se.magnus.microservices.api.core.product.grpc.ProductMessages;
+import se.magnus.microservices.api.core.product.grpc.ProductServiceGrpc;
+import se.magnus.microservices.api.core.product.grpc.ProductServiceGrpc.ProductServiceBlockingStub;
+
+/**
+ * {@link ProductService} over gRPC. A product that is not found is returned as
+ * null, as the Feign client's fallback does.
+ */
+public class GrpcProductService extends GrpcClient implements ProductService {
+
+    private final ProductServiceBlockingStub stub;
+
+    public GrpcProductService(String host, int port) {
+        super(host, port);
+        this.stub = ProductServiceGrpc.newBlockingStub(channel());
+    }
+
+    @Override
+    public Product getProduct(int productId) {
+        try {
+            return ProductMessages.fromMessage(withDeadline(stub)
+                    .getProduct(ProductIdRequest.newBuilder().setProductId(productId).build()));
+        } catch (StatusRuntimeException e) {
+            if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
+                return null;
+            }
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public List<Product> getProducts(List<Integer> productIds) {
+        try {
+            return ProductMessages.fromMessage(withDeadline(stub)
+                    .getProducts(ProductIdsRequest.newBuilder().addAllProductIds(productIds).build()));
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public Product createProduct(Product product) {
+        try {
+            return ProductMessages.fromMessage(withDeadline(stub).createProduct(ProductMessages.toMessage(product)));
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public void deleteProduct(int productId) {
+        try {
+            withDeadline(stub).deleteProduct(ProductIdRequest.newBuilder().setProductId(productId).build());
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+}
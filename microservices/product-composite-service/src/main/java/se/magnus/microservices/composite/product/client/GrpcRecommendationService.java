@@ -0,0 +1,85 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import io.grpc.StatusRuntimeException;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationMessages;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationPage;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationPageRequest;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationProductIdRequest;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationServiceGrpc;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationServiceGrpc.RecommendationServiceBlockingStub;
+import se.magnus.microservices.util.http.PageToken;
+
+/**
+ * {@link RecommendationService} over gRPC.
+ */
+public class GrpcRecommendationService extends GrpcClient implements RecommendationService {
+
+    private final RecommendationServiceBlockingStub stub;
+
+    public GrpcRecommendationService(String host, int port) {
+        super(host, port);
+        this.stub = RecommendationServiceGrpc.newBlockingStub(channel());
+    }
+
+    @Override
+    public List<Recommendation> getRecommendations(int productId) {
+        try {
+            return RecommendationMessages.fromMessage(withDeadline(stub).getRecommendations(
+                    RecommendationProductIdRequest.newBuilder().setProductId(productId).build()));
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public ResponseEntity<List<Recommendation>> getRecommendationPage(int productId, int pageSize, String pageToken, String order) {
+        RecommendationPageRequest.Builder request = RecommendationPageRequest.newBuilder()
+                .setProductId(productId)
+                .setPageSize(pageSize)
+                .setOrder(order);
+        if (pageToken != null) {
+            request.setPageToken(pageToken);
+        }
+        try {
+            RecommendationPage page = withDeadline(stub).getRecommendationPage(request.build());
+            HttpHeaders headers = new HttpHeaders();
+            if (page.hasNextPageToken()) {
+                headers.add(PageToken.NEXT_PAGE_TOKEN_HEADER, page.getNextPageToken());
+            }
+            if (page.hasTotalCount()) {
+                headers.add(PageToken.TOTAL_COUNT_HEADER, Integer.toString(page.getTotalCount()));
+            }
+            List<Recommendation> recommendations = page.getRecommendationsList().stream().map(RecommendationMessages::fromMessage).toList();
+            return new ResponseEntity<>(recommendations, headers, HttpStatus.OK);
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public Recommendation createRecommendation(Recommendation recommendation) {
+        try {
+            return RecommendationMessages.fromMessage(
+                    withDeadline(stub).createRecommendation(RecommendationMessages.toMessage(recommendation)));
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public void deleteRecommendations(int productId) {
+        try {
+            withDeadline(stub).deleteRecommendations(
+                    RecommendationProductIdRequest.newBuilder().setProductId(productId).build());
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import io.grpc.StatusRuntimeException;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.core.review.grpc.ReviewMessages;
+import se.magnus.microservices.api.core.review.grpc.ReviewPage;
+import se.magnus.microservices.api.core.review.grpc.ReviewPageRequest;
+import se.magnus.microservices.api.core.review.grpc.ReviewProductIdRequest;
+import se.magnus.microservices.api.core.review.grpc.ReviewServiceGrpc;
+import se.magnus.microservices.api.core.review.grpc.ReviewServiceGrpc.ReviewServiceBlockingStub;
+import se.magnus.microservices.util.http.PageToken;
+
+/**
+ * {@link ReviewService} over gRPC.
+ */
+public class GrpcReviewService extends GrpcClient implements ReviewService {
+
+    private final ReviewServiceBlockingStub stub;
+
+    public GrpcReviewService(String host, int port) {
+        super(host, port);
+        this.stub = ReviewServiceGrpc.newBlockingStub(channel());
+    }
+
+    @Override
+    public List<Review> getReviews(int productId) {
+        try {
+            return ReviewMessages.fromMessage(withDeadline(stub)
+                    .getReviews(ReviewProductIdRequest.newBuilder().setProductId(productId).build()));
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public ResponseEntity<List<Review>> getReviewPage(int productId, int pageSize, String pageToken, String order) {
+        ReviewPageRequest.Builder request = ReviewPageRequest.newBuilder()
+                .setProductId(productId)
+                .setPageSize(pageSize)
+                .setOrder(order);
+        if (pageToken != null) {
+            request.setPageToken(pageToken);
+        }
+        try {
+            ReviewPage page = withDeadline(stub).getReviewPage(request.build());
+            HttpHeaders headers = new HttpHeaders();
+            if (page.hasNextPageToken()) {
+                headers.add(PageToken.NEXT_PAGE_TOKEN_HEADER, page.getNextPageToken());
+            }
+            if (page.hasTotalCount()) {
+                headers.add(PageToken.TOTAL_COUNT_HEADER, Integer.toString(page.getTotalCount()));
+            }
+            List<Review> reviews = page.getReviewsList().stream().map(ReviewMessages::fromMessage).toList();
+            return new ResponseEntity<>(reviews, headers, HttpStatus.OK);
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public Review createReview(Review review) {
+        try {
+            return ReviewMessages.fromMessage(withDeadline(stub).createReview(ReviewMessages.toMessage(review)));
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public List<Review> createReviews(List<Review> reviews) {
+        try {
+            return ReviewMessages.fromMessage(withDeadline(stub).createReviews(ReviewMessages.toMessage(reviews)));
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public void deleteReviews(int productId) {
+        try {
+            withDeadline(stub).deleteReviews(ReviewProductIdRequest.newBuilder().setProductId(productId).build());
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package se.magnus.microservices.composite.product.client;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Feign client decorator that hedges GET requests. If no response has arrived
+ * after the configured percentile of the target service's recent latency, the
+ * request is sent a second time. The first successful response wins. The other
+ * attempt is interrupted, and its response is closed if one still arrives.
+ *
+ * Hedges are paid for from a per-service budget that grows by budgetRatio for
+ * every request. A request is hedged at most once, so even a budgetRatio of
+ * 1.0 can no more than double the load on a service.
+ */
+public class HedgingClient implements Client {
+
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final Client delegate;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final double percentile;
+    private final double budgetRatio;
+    private final int windowSize;
+    private final Map<String, TargetState> targets = new ConcurrentHashMap<>();
+
+    public HedgingClient(Client delegate, ExecutorService executor, MeterRegistry meterRegistry,
+            double percentile, double budgetRatio, int windowSize) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.percentile = percentile;
+        this.budgetRatio = Math.min(budgetRatio, 1.0);
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (request.httpMethod() != Request.HttpMethod.GET) {
+            return delegate.execute(request, options);
+        }
+
+        TargetState target = targets.computeIfAbsent(FeignTargets.name(request), TargetState::new);
+        target.calls.increment();
+        target.deposit();
+
+        // Only the first attempt with a response may claim it, a later one closes its own
+        AtomicBoolean claimed = new AtomicBoolean();
+        ExecutorCompletionService<Response> attempts = new ExecutorCompletionService<>(executor);
+        List<Future<Response>> pending = new ArrayList<>(2);
+        Future<Response> primary = attempts.submit(() -> attempt(request, options, target, claimed));
+        pending.add(primary);
+        try {
+            Future<Response> done = attempts.poll(target.hedgeDelayNanos, NANOSECONDS);
+            if (done == null) {
+                if (target.tryWithdraw()) {
+                    target.hedges.increment();
+                    pending.add(attempts.submit(() -> attempt(request, options, target, claimed)));
+                }
+                done = attempts.take();
+            }
+
+            ExecutionException failure = null;
+            for (int remaining = pending.size();; done = attempts.take()) {
+                try {
+                    Response response = done.get();
+                    if (done != primary) {
+                        target.wins.increment();
+                    }
+                    return response;
+                } catch (ExecutionException e) {
+                    failure = failure == null || failure.getCause() instanceof CancellationException ? e : failure;
+                    if (--remaining == 0) {
+                        throw unwrap(failure);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.url());
+        } finally {
+            pending.forEach(it -> it.cancel(true));
+        }
+    }
+
+    private Response attempt(Request request, Request.Options options, TargetState target, AtomicBoolean claimed)
+            throws IOException {
+        long start = System.nanoTime();
+        Response response = delegate.execute(request, options);
+        target.record(System.nanoTime() - start);
+        if (!claimed.compareAndSet(false, true)) {
+            response.close();
+            throw new CancellationException("Another attempt already responded");
+        }
+        return response;
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof IOException cause) {
+            return cause;
+        }
+        if (e.getCause() instanceof RuntimeException cause) {
+            throw cause;
+        }
+        return new IOException(e.getCause());
+    }
+
+    /**
+     * Latency window, hedge delay, budget and metrics of one downstream service.
+     */
+    private class TargetState {
+
+        private static final long TOKEN = 1000;
+        private static final long MAX_BALANCE = 10 * TOKEN;
+
+        private final AtomicLongArray latencies = new AtomicLongArray(windowSize);
+        private final AtomicLong recorded = new AtomicLong();
+        private final AtomicLong balance = new AtomicLong();
+        private final long deposit = Math.round(budgetRatio * TOKEN);
+
+        // No hedging until the latency window has been filled once
+        private volatile long hedgeDelayNanos = Long.MAX_VALUE;
+
+        private final Counter calls;
+        private final Counter hedges;
+        private final Counter wins;
+
+        TargetState(String name) {
+            calls = Counter.builder("composite.hedging.calls")
+                    .description("GET requests that were eligible for hedging")
+                    .tag("client", name)
+                    .register(meterRegistry);
+            hedges = Counter.builder("composite.hedging.hedges")
+                    .description("Hedge requests sent")
+                    .tag("client", name)
+                    .register(meterRegistry);
+            wins = Counter.builder("composite.hedging.wins")
+                    .description("Requests answered by the hedge rather than the original request")
+                    .tag("client", name)
+                    .register(meterRegistry);
+        }
+
+        void record(long nanos) {
+            long n = recorded.getAndIncrement();
+            latencies.set((int) (n % windowSize), nanos);
+            if (n + 1 >= windowSize && (n + 1) % Math.min(RECOMPUTE_INTERVAL, windowSize) == 0) {
+                long[] sorted = new long[windowSize];
+                for (int i = 0; i < windowSize; i++) {
+                    sorted[i] = latencies.get(i);
+                }
+                Arrays.sort(sorted);
+                hedgeDelayNanos = sorted[Math.max(0, (int) Math.ceil(percentile * windowSize) - 1)];
+            }
+        }
+
+        void deposit() {
+            balance.accumulateAndGet(deposit, (current, amount) -> Math.min(current + amount, MAX_BALANCE));
+        }
+
+        boolean tryWithdraw() {
+            long current;
+            do {
+                current = balance.get();
+                if (current < TOKEN) {
+                    return false;
+                }
+            } while (!balance.compareAndSet(current, current - TOKEN));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import feign.Capability;
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wraps the HTTP client of every Feign client in a {@link HedgingClient}, enabled with app.hedging.enabled=true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.hedging.enabled", havingValue = "true")
+public class HedgingConfiguration {
+
+    @Bean
+    Capability hedgingCapability(
+            ExecutorService compositeExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${app.hedging.percentile:0.95}") double percentile,
+            @Value("${app.hedging.budget-ratio:0.1}") double budgetRatio,
+            @Value("${app.hedging.window-size:1000}") int windowSize) {
+
+        return new Capability() {
+
+            @Override
+            public Client enrich(Client client) {
+                return new HedgingClient(client, compositeExecutor, meterRegistry, percentile, budgetRatio, windowSize);
+            }
+        };
+    }
+}
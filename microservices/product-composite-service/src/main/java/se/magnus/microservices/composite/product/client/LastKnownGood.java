@@ -0,0 +1,96 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.review.Review;
+
+/**
+ * The last recommendations and reviews of each product that their services
+ * returned, kept much longer than assembled aggregates. The composite records
+ * every fresh list, the Feign fallbacks serve them as {@link StaleList}s when a
+ * call fails or its circuit is open, so an outage does not empty product pages.
+ * With bounded aggregates the lists are the embedded first pages, the composite
+ * serves them itself when a first page fails.
+ * Metrics are published as cache.* meters with the tags cache=lastKnownRecommendations
+ * and cache=lastKnownReviews.
+ */
+@Component
+public class LastKnownGood {
+
+    private final Cache<Integer, List<Recommendation>> recommendations;
+    private final Cache<Integer, List<Review>> reviews;
+
+    public LastKnownGood(
+            MeterRegistry meterRegistry,
+            @Value("${app.composite.last-known-good.maximum-size:10000}") long maximumSize,
+            @Value("${app.composite.last-known-good.time-to-live:1h}") Duration timeToLive) {
+
+        recommendations = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        reviews = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recommendations, "lastKnownRecommendations");
+        CaffeineCacheMetrics.monitor(meterRegistry, reviews, "lastKnownReviews");
+    }
+
+    /**
+     * Records a list returned by the recommendation service, stale lists are ignored.
+     */
+    public void putRecommendations(int productId, List<Recommendation> list) {
+        if (!StaleList.isStale(list)) {
+            recommendations.put(productId, List.copyOf(list));
+        }
+    }
+
+    /**
+     * Records a list returned by the review service, stale lists are ignored.
+     */
+    public void putReviews(int productId, List<Review> list) {
+        if (!StaleList.isStale(list)) {
+            reviews.put(productId, List.copyOf(list));
+        }
+    }
+
+    /**
+     * Forgets the lists of a product that is created or deleted, they no longer describe it.
+     */
+    public void invalidate(int productId) {
+        recommendations.invalidate(productId);
+        reviews.invalidate(productId);
+    }
+
+    /**
+     * @return the last known recommendations of the product, empty if none are known
+     */
+    public StaleList<Recommendation> getRecommendations(int productId) {
+        return stale(recommendations, productId);
+    }
+
+    /**
+     * @return the last known reviews of the product, empty if none are known
+     */
+    public StaleList<Review> getReviews(int productId) {
+        return stale(reviews, productId);
+    }
+
+    private static <T> StaleList<T> stale(Cache<Integer, List<T>> cache, int productId) {
+        List<T> list = cache.getIfPresent(productId);
+        return new StaleList<>(list == null ? List.of() : list);
+    }
+}
@@ -1,20 +1,26 @@
 package se.magnus.microservices.composite.product.client;
 
+import java.util.List;
+
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import se.magnus.microservices.api.core.product.Product;
 
-@FeignClient(name = "product-service", fallbackFactory = ProductServiceFallback.class)
+@FeignClient(name = "product-service", fallbackFactory = ProductServiceFallback.class, primary = false)
 public interface ProductService {
 
     @GetMapping("/product/{productId}")
     Product getProduct(@PathVariable int productId);
 
+    @GetMapping("/product")
+    List<Product> getProducts(@RequestParam("ids") List<Integer> productIds);
+
     @PostMapping("/product")
     Product createProduct(@RequestBody Product product);
 
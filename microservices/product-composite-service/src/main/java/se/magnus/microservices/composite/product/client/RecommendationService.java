@@ -3,6 +3,7 @@ package se.magnus.microservices.composite.product.client;
 import java.util.List;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,12 +12,19 @@ import org.springframework.web.bind.annotation.RequestParam;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import se.magnus.microservices.api.core.recommendation.Recommendation;
 
-@FeignClient(name = "recommendation-service")
+@FeignClient(name = "recommendation-service", fallbackFactory = RecommendationServiceFallback.class, primary = false)
 public interface RecommendationService {
 
     @GetMapping("/recommendation")
     List<Recommendation> getRecommendations(@RequestParam int productId);
 
+    /**
+     * @return a keyset page, with the X-Next-Page-Token and, on the first page, the X-Total-Count header
+     */
+    @GetMapping("/recommendation")
+    ResponseEntity<List<Recommendation>> getRecommendationPage(@RequestParam int productId, @RequestParam int pageSize,
+            @RequestParam(required = false) String pageToken, @RequestParam String order);
+
     @PostMapping("/recommendation")
     Recommendation createRecommendation(@RequestBody Recommendation recommendation);
 
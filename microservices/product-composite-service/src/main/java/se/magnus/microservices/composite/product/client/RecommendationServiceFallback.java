@@ -0,0 +1,59 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.List;
+
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+
+/**
+ * Serves the last known recommendations of a product, as a {@link StaleList}, when
+ * the recommendation service fails or its circuit is open. Invalid input is still
+ * reported as such, and pages and writes fail as they did without a fallback.
+ */
+@Slf4j
+@Component
+public class RecommendationServiceFallback implements FallbackFactory<RecommendationService> {
+
+    private final LastKnownGood lastKnownGood;
+
+    public RecommendationServiceFallback(LastKnownGood lastKnownGood) {
+        this.lastKnownGood = lastKnownGood;
+    }
+
+    @Override
+    public RecommendationService create(Throwable cause) {
+        FeignFallbacks.log(log, "RecommendationService", cause);
+        return new RecommendationService() {
+
+            @Override
+            public List<Recommendation> getRecommendations(int productId) {
+                if (cause instanceof InvalidInputException exception) {
+                    throw exception;
+                }
+                return lastKnownGood.getRecommendations(productId);
+            }
+
+            @Override
+            public ResponseEntity<List<Recommendation>> getRecommendationPage(int productId, int pageSize,
+                    String pageToken, String order) {
+                throw FeignFallbacks.propagate(cause);
+            }
+
+            @Override
+            public Recommendation createRecommendation(Recommendation recommendation) {
+                throw FeignFallbacks.propagate(cause);
+            }
+
+            @Override
+            public void deleteRecommendations(int productId) {
+                throw FeignFallbacks.propagate(cause);
+            }
+
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.OptionalLong;
+
+/**
+ * Deadline of the request being handled by the current thread. Threads started
+ * while handling the request, such as the virtual threads of the composite
+ * executor, inherit it.
+ */
+public final class RequestDeadline {
+
+    private static final InheritableThreadLocal<Long> DEADLINE_NANOS = new InheritableThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void set(long deadlineNanos) {
+        DEADLINE_NANOS.set(deadlineNanos);
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * @return the nanoseconds left until the deadline, negative once it has passed, or empty if there is none
+     */
+    public static OptionalLong remainingNanos() {
+        Long deadlineNanos = DEADLINE_NANOS.get();
+        return deadlineNanos == null ? OptionalLong.empty() : OptionalLong.of(deadlineNanos - System.nanoTime());
+    }
+}
@@ -3,6 +3,7 @@ package se.magnus.microservices.composite.product.client;
 import java.util.List;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,15 +12,28 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import se.magnus.microservices.api.core.review.Review;
 
-@FeignClient(name = "review-service")
+@FeignClient(name = "review-service", fallbackFactory = ReviewServiceFallback.class, primary = false)
 public interface ReviewService {
 
     @GetMapping("/review")
     List<Review> getReviews(@RequestParam int productId);
 
+    /**
+     * @return a keyset page, with the X-Next-Page-Token and, on the first page, the X-Total-Count header
+     */
+    @GetMapping("/review")
+    ResponseEntity<List<Review>> getReviewPage(@RequestParam int productId, @RequestParam int pageSize,
+            @RequestParam(required = false) String pageToken, @RequestParam String order);
+
     @PostMapping("/review")
     Review createReview(@RequestBody Review review);
 
+    /**
+     * Creates all or none of the reviews, with batched inserts
+     */
+    @PostMapping("/review/batch")
+    List<Review> createReviews(@RequestBody List<Review> reviews);
+
     @DeleteMapping("/review")
     void deleteReviews(@RequestParam int productId);
 
@@ -0,0 +1,64 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.List;
+
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+
+/**
+ * Serves the last known reviews of a product, as a {@link StaleList}, when
+ * the review service fails or its circuit is open. Invalid input is still
+ * reported as such, and pages and writes fail as they did without a fallback.
+ */
+@Slf4j
+@Component
+public class ReviewServiceFallback implements FallbackFactory<ReviewService> {
+
+    private final LastKnownGood lastKnownGood;
+
+    public ReviewServiceFallback(LastKnownGood lastKnownGood) {
+        this.lastKnownGood = lastKnownGood;
+    }
+
+    @Override
+    public ReviewService create(Throwable cause) {
+        FeignFallbacks.log(log, "ReviewService", cause);
+        return new ReviewService() {
+
+            @Override
+            public List<Review> getReviews(int productId) {
+                if (cause instanceof InvalidInputException exception) {
+                    throw exception;
+                }
+                return lastKnownGood.getReviews(productId);
+            }
+
+            @Override
+            public ResponseEntity<List<Review>> getReviewPage(int productId, int pageSize,
+                    String pageToken, String order) {
+                throw FeignFallbacks.propagate(cause);
+            }
+
+            @Override
+            public Review createReview(Review review) {
+                throw FeignFallbacks.propagate(cause);
+            }
+
+            @Override
+            public List<Review> createReviews(List<Review> reviews) {
+                throw FeignFallbacks.propagate(cause);
+            }
+
+            @Override
+            public void deleteReviews(int productId) {
+                throw FeignFallbacks.propagate(cause);
+            }
+
+        };
+    }
+}
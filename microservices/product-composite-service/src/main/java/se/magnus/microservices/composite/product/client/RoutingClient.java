@@ -0,0 +1,37 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Sends the requests of each Feign client through a transport of its own, e.g. a
+ * separate connection pool per downstream service.
+ */
+class RoutingClient implements Client, Closeable {
+
+    private final Function<String, Client> transportFactory;
+    private final Map<String, Client> transports = new ConcurrentHashMap<>();
+
+    RoutingClient(Function<String, Client> transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        return transports.computeIfAbsent(FeignTargets.name(request), transportFactory).execute(request, options);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (transportFactory instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
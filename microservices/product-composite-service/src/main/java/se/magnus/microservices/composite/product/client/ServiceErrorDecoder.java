@@ -0,0 +1,51 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import feign.Response;
+import feign.codec.ErrorDecoder;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.util.http.HttpErrorInfo;
+
+/**
+ * Turns the 404 and 422 answers of the core services straight into the stackless
+ * NotFoundException and InvalidInputException, with the message of their error body,
+ * instead of a FeignException with a stack trace for the fallbacks to pick apart.
+ * Other statuses are decoded as by default.
+ */
+@Component
+public class ServiceErrorDecoder implements ErrorDecoder {
+
+    private final ErrorDecoder defaultDecoder = new ErrorDecoder.Default();
+    private final ObjectMapper om;
+
+    public ServiceErrorDecoder(ObjectMapper om) {
+        this.om = om;
+    }
+
+    @Override
+    public Exception decode(String methodKey, Response response) {
+        return switch (response.status()) {
+            case 404 -> new NotFoundException(errorMessage(response));
+            case 422 -> new InvalidInputException(errorMessage(response));
+            default -> defaultDecoder.decode(methodKey, response);
+        };
+    }
+
+    private String errorMessage(Response response) {
+        if (response.body() == null) {
+            return null;
+        }
+        try (InputStream body = response.body().asInputStream()) {
+            return om.readValue(body, HttpErrorInfo.class).getMessage();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package se.magnus.microservices.composite.product.client;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list that a fallback served from {@link LastKnownGood} instead of from its
+ * service, so the composite can mark that part of the aggregate as stale.
+ */
+public final class StaleList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final List<E> items;
+
+    StaleList(List<E> items) {
+        this.items = items;
+    }
+
+    public static boolean isStale(List<?> list) {
+        return list instanceof StaleList;
+    }
+
+    @Override
+    public E get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+}
@@ -0,0 +1,20 @@
+package se.magnus.microservices.composite.product.client;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replaces the default HttpURLConnection based Feign client, see {@link FeignTransports}.
+ */
+@Configuration
+public class TransportConfiguration {
+
+    @Bean
+    Client feignClient(Environment environment, MeterRegistry meterRegistry) {
+        return new RoutingClient(new FeignTransports(environment, meterRegistry));
+    }
+}
@@ -0,0 +1,174 @@
+package se.magnus.microservices.composite.product;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import se.magnus.microservices.api.core.product.Product;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.composite.product.client.ProductService;
+import se.magnus.microservices.composite.product.client.RecommendationService;
+import se.magnus.microservices.composite.product.client.RecommendationServiceFallback;
+import se.magnus.microservices.composite.product.client.ReviewService;
+import se.magnus.microservices.util.http.PageToken;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "app.aggregate.max-embedded=2",
+        "app.aggregate.order=desc" })
+class BoundedProductAggregateTests {
+
+    private static final int PRODUCT_ID = 1;
+    private static final int PRODUCT_ID_NOT_FOUND = 13;
+
+    @MockitoBean
+    ProductService productService;
+
+    @MockitoBean
+    RecommendationService recommendationService;
+
+    @MockitoBean
+    ReviewService reviewService;
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    RecommendationServiceFallback recommendationServiceFallback;
+
+    @BeforeEach
+    void setUp() {
+        when(productService.getProduct(PRODUCT_ID))
+                .thenReturn(new Product(PRODUCT_ID, "name", 1, "mock address"));
+        when(recommendationService.getRecommendationPage(PRODUCT_ID, 2, null, "desc"))
+                .thenReturn(ResponseEntity.ok()
+                        .header(PageToken.TOTAL_COUNT_HEADER, "2")
+                        .body(List.of(
+                                new Recommendation(PRODUCT_ID, 2, "author", 1, "content", "mock address"),
+                                new Recommendation(PRODUCT_ID, 1, "author", 1, "content", "mock address"))));
+        when(reviewService.getReviewPage(PRODUCT_ID, 2, null, "desc"))
+                .thenReturn(ResponseEntity.ok()
+                        .header(PageToken.TOTAL_COUNT_HEADER, "5")
+                        .header(PageToken.NEXT_PAGE_TOKEN_HEADER, "next")
+                        .body(List.of(
+                                new Review(PRODUCT_ID, 5, "author", "subject", "content", "mock address"),
+                                new Review(PRODUCT_ID, 4, "author", "subject", "content", "mock address"))));
+        when(reviewService.getReviewPage(PRODUCT_ID, 2, "next", "desc"))
+                .thenReturn(ResponseEntity.ok()
+                        .header(PageToken.NEXT_PAGE_TOKEN_HEADER, "last")
+                        .body(List.of(
+                                new Review(PRODUCT_ID, 3, "author", "subject", "content", "mock address"),
+                                new Review(PRODUCT_ID, 2, "author", "subject", "content", "mock address"))));
+    }
+
+    @Test
+    void getProductEmbedsTheFirstItems() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.recommendations.length()").isEqualTo(2)
+                .jsonPath("$.recommendationCount").isEqualTo(2)
+                .jsonPath("$.recommendationsNextPage").doesNotExist()
+                .jsonPath("$.reviews.length()").isEqualTo(2)
+                .jsonPath("$.reviews[0].reviewId").isEqualTo(5)
+                .jsonPath("$.reviewCount").isEqualTo(5)
+                .jsonPath("$.reviewsNextPage")
+                .isEqualTo("/product-composite/" + PRODUCT_ID + "/reviews?pageSize=2&order=desc&pageToken=next");
+    }
+
+    @Test
+    void getProductsWithMoreItemsThanACoreServiceReturnsAtOnce() {
+        // Like the core services for a product over app.max-results-per-request
+        when(recommendationService.getRecommendations(anyInt()))
+                .thenThrow(new InvalidInputException("Too many recommendations for productId: " + PRODUCT_ID));
+        when(reviewService.getReviews(anyInt()))
+                .thenThrow(new InvalidInputException("Too many reviews for productId: " + PRODUCT_ID));
+        when(productService.getProducts(List.of(PRODUCT_ID, PRODUCT_ID_NOT_FOUND)))
+                .thenReturn(List.of(new Product(PRODUCT_ID, "name", 1, "mock address")));
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.reviews.length()").isEqualTo(2)
+                .jsonPath("$.reviewCount").isEqualTo(5);
+
+        client.get()
+                .uri("/product-composite?ids=" + PRODUCT_ID + "," + PRODUCT_ID_NOT_FOUND)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$['" + PRODUCT_ID + "'].recommendations.length()").isEqualTo(2)
+                .jsonPath("$['" + PRODUCT_ID + "'].reviews.length()").isEqualTo(2)
+                .jsonPath("$['" + PRODUCT_ID + "'].reviewsNextPage")
+                .isEqualTo("/product-composite/" + PRODUCT_ID + "/reviews?pageSize=2&order=desc&pageToken=next")
+                .jsonPath("$['" + PRODUCT_ID_NOT_FOUND + "']").isEmpty();
+
+        verify(recommendationService, never()).getRecommendations(anyInt());
+        verify(reviewService, never()).getReviews(anyInt());
+    }
+
+    @Test
+    void getProductEmbedsTheLastKnownFirstPageWhenItFails() {
+        // Partial aggregates are not cached, each request calls the recommendation service
+        String uri = "/product-composite/" + PRODUCT_ID + "?include=product,recommendations";
+        client.get()
+                .uri(uri)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.recommendations.length()").isEqualTo(2)
+                .jsonPath("$.recommendationsStale").doesNotExist();
+
+        // The recommendation service goes down, the first page seen last is embedded instead
+        when(recommendationService.getRecommendationPage(PRODUCT_ID, 2, null, "desc"))
+                .thenAnswer(invocation -> recommendationServiceFallback.create(new IOException("Connection refused"))
+                        .getRecommendationPage(PRODUCT_ID, 2, null, "desc"));
+        client.get()
+                .uri(uri)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.recommendations.length()").isEqualTo(2)
+                .jsonPath("$.recommendations[0].recommendationId").isEqualTo(2)
+                .jsonPath("$.recommendationCount").doesNotExist()
+                .jsonPath("$.recommendationsStale").isEqualTo(true);
+    }
+
+    @Test
+    void getNextPageOfReviews() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID + "/reviews?pageSize=2&order=desc&pageToken=next")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(PageToken.NEXT_PAGE_TOKEN_HEADER, "last")
+                .expectHeader().doesNotExist(PageToken.TOTAL_COUNT_HEADER)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].reviewId").isEqualTo(3);
+    }
+}
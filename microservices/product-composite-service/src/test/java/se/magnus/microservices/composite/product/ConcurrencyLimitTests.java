@@ -0,0 +1,115 @@
+package se.magnus.microservices.composite.product;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import se.magnus.microservices.composite.product.client.RecommendationService;
+import se.magnus.microservices.composite.product.client.ReviewService;
+
+// The real product-service Feign client against a stub product service, allowed one call at a time
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "app.aggregate.max-embedded=0",
+        "app.concurrency-limit.initial-limit=1",
+        "app.concurrency-limit.max-limit=1",
+        "app.concurrency-limit.max-queue-wait=1ms" })
+class ConcurrencyLimitTests {
+
+    private static final CountDownLatch called = new CountDownLatch(1);
+    private static final CountDownLatch release = new CountDownLatch(1);
+    private static final HttpServer productService = startProductService();
+
+    @MockitoBean
+    RecommendationService recommendationService;
+
+    @MockitoBean
+    ReviewService reviewService;
+
+    @Autowired
+    WebTestClient client;
+
+    @DynamicPropertySource
+    static void productServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.openfeign.client.config.product-service.url",
+                () -> "http://localhost:" + productService.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopProductService() {
+        release.countDown();
+        productService.stop(0);
+    }
+
+    @Test
+    void callsOverTheLimitAreServiceUnavailable() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> first = executor.submit(() -> client.get()
+                    .uri("/product-composite/1")
+                    .accept(APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus().isOk());
+            called.await(5, TimeUnit.SECONDS);
+
+            // The only permit is held by the first call, the product service is not asked
+            client.get()
+                    .uri("/product-composite/2")
+                    .accept(APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static HttpServer startProductService() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/product/", ConcurrencyLimitTests::answerAfterRelease);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void answerAfterRelease(HttpExchange exchange) throws IOException {
+        called.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String productId = exchange.getRequestURI().getPath().substring("/product/".length());
+        byte[] body = ("{\"productId\":" + productId + ",\"name\":\"name\",\"weight\":1}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package se.magnus.microservices.composite.product;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +22,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import se.magnus.microservices.api.composite.product.ProductAggregate;
+import se.magnus.microservices.api.composite.product.RecommendationSummary;
+import se.magnus.microservices.api.composite.product.ReviewSummary;
 import se.magnus.microservices.api.core.product.Product;
 import se.magnus.microservices.api.core.recommendation.Recommendation;
 import se.magnus.microservices.api.core.review.Review;
@@ -21,12 +34,17 @@ import se.magnus.microservices.api.exceptions.InvalidInputException;
 import se.magnus.microservices.api.exceptions.NotFoundException;
 import se.magnus.microservices.composite.product.client.ProductService;
 import se.magnus.microservices.composite.product.client.RecommendationService;
+import se.magnus.microservices.composite.product.client.RecommendationServiceFallback;
 import se.magnus.microservices.composite.product.client.ReviewService;
+import se.magnus.microservices.util.http.DeadlineWebFilter;
 
-@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+// Aggregates that embed the full lists, bounded aggregates are covered by BoundedProductAggregateTests
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "app.aggregate.max-embedded=0")
 class ProductCompositeApplicationTests {
 
     private static final int PRODUCT_ID_OK = 1;
+    private static final int PRODUCT_ID_VERSIONED = 2;
+    private static final int PRODUCT_ID_STALE = 3;
     private static final int PRODUCT_ID_NOT_FOUND = 13;
     private static final int PRODUCT_ID_INVALID = -1;
 
@@ -42,6 +60,9 @@ class ProductCompositeApplicationTests {
     @Autowired
     WebTestClient client;
 
+    @Autowired
+    RecommendationServiceFallback recommendationServiceFallback;
+
     @BeforeEach
     void setUp() {
         when(productService.getProduct(PRODUCT_ID_OK))
@@ -54,6 +75,9 @@ class ProductCompositeApplicationTests {
                 .thenThrow(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND));
         when(productService.getProduct(PRODUCT_ID_INVALID))
                 .thenThrow(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID));
+
+        when(productService.getProducts(List.of(PRODUCT_ID_OK, PRODUCT_ID_NOT_FOUND)))
+                .thenReturn(List.of(new Product(PRODUCT_ID_OK, "name", 1, "mock address")));
     }
 
     @Test
@@ -74,6 +98,241 @@ class ProductCompositeApplicationTests {
                 .jsonPath("$.reviews.length()").isEqualTo(1);
     }
 
+    @Test
+    void getProductNotModified() {
+        when(productService.getProduct(PRODUCT_ID_VERSIONED))
+                .thenReturn(versioned(new Product(PRODUCT_ID_VERSIONED, "name", 1, "mock address"), 3));
+        when(recommendationService.getRecommendations(PRODUCT_ID_VERSIONED))
+                .thenReturn(List.of(versioned(
+                        new Recommendation(PRODUCT_ID_VERSIONED, 1, "author", 1, "content", "mock address"), 0)));
+        when(reviewService.getReviews(PRODUCT_ID_VERSIONED))
+                .thenReturn(List.of(versioned(
+                        new Review(PRODUCT_ID_VERSIONED, 1, "author", "subject", "content", "mock address"), 0)));
+
+        String eTag = client.get()
+                .uri("/product-composite/" + PRODUCT_ID_VERSIONED)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.version").isEqualTo(3)
+                .returnResult()
+                .getResponseHeaders().getETag();
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_VERSIONED)
+                .ifNoneMatch(eTag)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED)
+                .expectBody().isEmpty();
+
+        // An updated review changes the ETag of the aggregate
+        when(reviewService.getReviews(PRODUCT_ID_VERSIONED))
+                .thenReturn(List.of(versioned(
+                        new Review(PRODUCT_ID_VERSIONED, 1, "author", "subject", "edited", "mock address"), 1)));
+        deleteAndVerifyProduct(PRODUCT_ID_VERSIONED);
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_VERSIONED)
+                .ifNoneMatch(eTag)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.reviews[0].version").isEqualTo(1);
+    }
+
+    @Test
+    void getProductWithStaleRecommendations() {
+        // Partial aggregates are not cached, each request calls the recommendation service
+        String uri = "/product-composite/" + PRODUCT_ID_STALE + "?include=product,recommendations";
+        when(productService.getProduct(PRODUCT_ID_STALE))
+                .thenReturn(new Product(PRODUCT_ID_STALE, "name", 1, "mock address"));
+        when(recommendationService.getRecommendations(PRODUCT_ID_STALE))
+                .thenReturn(List.of(new Recommendation(PRODUCT_ID_STALE, 1, "author", 1, "content", "mock address")));
+        client.get()
+                .uri(uri)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.recommendations.length()").isEqualTo(1)
+                .jsonPath("$.recommendationsStale").doesNotExist();
+
+        // The recommendation service goes down, its fallback serves the recommendations seen last
+        when(recommendationService.getRecommendations(PRODUCT_ID_STALE))
+                .thenAnswer(invocation -> recommendationServiceFallback.create(new IOException("Connection refused"))
+                        .getRecommendations(PRODUCT_ID_STALE));
+        client.get()
+                .uri(uri)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.recommendations.length()").isEqualTo(1)
+                .jsonPath("$.recommendations[0].recommendationId").isEqualTo(1)
+                .jsonPath("$.recommendationsStale").isEqualTo(true);
+    }
+
+    @Test
+    void getProductWithoutReviews() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK + "?include=product,recommendations")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK)
+                .jsonPath("$.recommendations.length()").isEqualTo(1)
+                .jsonPath("$.reviews").doesNotExist();
+        verify(reviewService, never()).getReviews(PRODUCT_ID_OK);
+    }
+
+    @Test
+    void getProductWithInvalidInclude() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK + "?include=price")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid include: price, expected product, recommendations or reviews");
+    }
+
+    @Test
+    void getProductIsCachedUntilDeleted() {
+        deleteAndVerifyProduct(PRODUCT_ID_OK);
+
+        getAndVerifyProduct(PRODUCT_ID_OK);
+        getAndVerifyProduct(PRODUCT_ID_OK);
+        verify(productService, times(1)).getProduct(PRODUCT_ID_OK);
+
+        deleteAndVerifyProduct(PRODUCT_ID_OK);
+        getAndVerifyProduct(PRODUCT_ID_OK);
+        verify(productService, times(2)).getProduct(PRODUCT_ID_OK);
+    }
+
+    @Test
+    void getProductsByIds() {
+        client.get()
+                .uri("/product-composite?ids=" + PRODUCT_ID_OK + "," + PRODUCT_ID_NOT_FOUND)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$['" + PRODUCT_ID_OK + "'].productId").isEqualTo(PRODUCT_ID_OK)
+                .jsonPath("$['" + PRODUCT_ID_OK + "'].recommendations.length()").isEqualTo(1)
+                .jsonPath("$['" + PRODUCT_ID_OK + "'].reviews.length()").isEqualTo(1)
+                .jsonPath("$['" + PRODUCT_ID_NOT_FOUND + "']").isEmpty();
+    }
+
+    @Test
+    void createProducts() {
+        when(productService.createProduct(any()))
+                .thenAnswer(invocation -> {
+                    Product product = invocation.getArgument(0);
+                    if (product.getProductId() == PRODUCT_ID_INVALID) {
+                        throw new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID);
+                    }
+                    return product;
+                });
+
+        List<ProductAggregate> body = List.of(
+                new ProductAggregate(PRODUCT_ID_OK, "name", 1,
+                        List.of(new RecommendationSummary(1, "author", 1, "content")),
+                        List.of(new ReviewSummary(1, "author", "subject", "content")), null),
+                new ProductAggregate(PRODUCT_ID_INVALID, "name", 1, null, null, null));
+
+        client.post()
+                .uri("/product-composite/batch")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].productId").isEqualTo(PRODUCT_ID_OK)
+                .jsonPath("$[0].status").isEqualTo(HttpStatus.OK.value())
+                .jsonPath("$[1].productId").isEqualTo(PRODUCT_ID_INVALID)
+                .jsonPath("$[1].status").isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .jsonPath("$[1].message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
+
+        verify(recommendationService).createRecommendation(any());
+        // The reviews of a product are created by one batch request
+        verify(reviewService).createReviews(argThat(reviews -> reviews.size() == 1
+                && reviews.get(0).getProductId() == PRODUCT_ID_OK && reviews.get(0).getReviewId() == 1));
+        verify(reviewService, never()).createReview(any());
+    }
+
+    @Test
+    void deleteProductsReportsTheWritesThatMissTheDeadline() {
+        doAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return null;
+        }).when(productService).deleteProduct(PRODUCT_ID_NOT_FOUND);
+
+        client.delete()
+                .uri("/product-composite?ids=" + PRODUCT_ID_OK + "," + PRODUCT_ID_NOT_FOUND)
+                .header(DeadlineWebFilter.BUDGET_HEADER, "500")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].status").isEqualTo(HttpStatus.OK.value())
+                .jsonPath("$[1].productId").isEqualTo(PRODUCT_ID_NOT_FOUND)
+                .jsonPath("$[1].status").isEqualTo(HttpStatus.GATEWAY_TIMEOUT.value())
+                .jsonPath("$[1].message").isEqualTo("Deadline exceeded");
+    }
+
+    @Test
+    void deleteProducts() {
+        client.delete()
+                .uri("/product-composite?ids=" + PRODUCT_ID_OK + "," + PRODUCT_ID_OK + "," + PRODUCT_ID_NOT_FOUND)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].status").isEqualTo(HttpStatus.OK.value())
+                .jsonPath("$[1].status").isEqualTo(HttpStatus.OK.value());
+
+        verify(productService).deleteProduct(PRODUCT_ID_OK);
+        verify(productService).deleteProduct(PRODUCT_ID_NOT_FOUND);
+    }
+
+    @Test
+    void createAndDeleteProductsWhileTheProductServiceIsDown() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("product-service");
+        circuitBreaker.transitionToOpenState();
+        when(productService.createProduct(any()))
+                .thenThrow(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+        doThrow(CallNotPermittedException.createCallNotPermittedException(circuitBreaker))
+                .when(productService).deleteProduct(PRODUCT_ID_OK);
+
+        client.post()
+                .uri("/product-composite/batch")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(List.of(new ProductAggregate(PRODUCT_ID_OK, "name", 1,
+                        List.of(new RecommendationSummary(1, "author", 1, "content")),
+                        List.of(new ReviewSummary(1, "author", "subject", "content")), null)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+
+        // Nothing is created for a product that was not created
+        verify(recommendationService, never()).createRecommendation(any());
+        verify(reviewService, never()).createReviews(any());
+
+        client.delete()
+                .uri("/product-composite?ids=" + PRODUCT_ID_OK)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
     @Test
     void getProductNotFound() {
         client.get()
@@ -99,4 +358,36 @@ class ProductCompositeApplicationTests {
                 .jsonPath("$.path").isEqualTo("/product-composite/" + PRODUCT_ID_INVALID)
                 .jsonPath("$.message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
     }
+
+    private void getAndVerifyProduct(int productId) {
+        client.get()
+                .uri("/product-composite/" + productId)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.productId").isEqualTo(productId);
+    }
+
+    private void deleteAndVerifyProduct(int productId) {
+        client.delete()
+                .uri("/product-composite/" + productId)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private static Product versioned(Product product, int version) {
+        product.setVersion(version);
+        return product;
+    }
+
+    private static Recommendation versioned(Recommendation recommendation, int version) {
+        recommendation.setVersion(version);
+        return recommendation;
+    }
+
+    private static Review versioned(Review review, int version) {
+        review.setVersion(version);
+        return review;
+    }
 }
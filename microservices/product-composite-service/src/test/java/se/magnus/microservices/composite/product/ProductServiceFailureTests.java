@@ -0,0 +1,77 @@
+package se.magnus.microservices.composite.product;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// The real clients against core services that answer every call with 500, the reactive
+// composite runs the same test in ReactiveProductServiceFailureTests
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class ProductServiceFailureTests {
+
+    private static final int PRODUCT_ID = 1;
+
+    // Shared with the subclass, it runs until the test JVM exits
+    private static final HttpServer coreServices = startCoreServices();
+
+    @Autowired
+    WebTestClient client;
+
+    @DynamicPropertySource
+    static void coreServiceUrls(DynamicPropertyRegistry registry) {
+        int port = coreServices.getAddress().getPort();
+        for (String service : new String[] { "product-service", "recommendation-service", "review-service" }) {
+            registry.add("spring.cloud.openfeign.client.config." + service + ".url", () -> "http://localhost:" + port);
+            registry.add("app." + service + ".host", () -> "localhost");
+            registry.add("app." + service + ".port", () -> port);
+        }
+    }
+
+    @Test
+    void getProductWhenTheProductServiceFails() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("No product found for productId: " + PRODUCT_ID);
+    }
+
+    private static HttpServer startCoreServices() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/", ProductServiceFailureTests::answerWithServerError);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void answerWithServerError(HttpExchange exchange) throws IOException {
+        byte[] body = ("{\"path\":\"" + exchange.getRequestURI().getPath()
+                + "\",\"httpStatus\":\"INTERNAL_SERVER_ERROR\",\"message\":\"Boom\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(500, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package se.magnus.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import se.magnus.microservices.api.composite.product.ProductAggregate;
+import se.magnus.microservices.api.core.product.Product;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.util.http.PageToken;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveProductCompositeApplicationTests {
+
+    private static final int PRODUCT_ID_OK = 1;
+    private static final int PRODUCT_ID_NOT_FOUND = 13;
+    private static final int PRODUCT_ID_INVALID = -1;
+
+    @MockitoBean
+    ReactiveProductCompositeIntegration integration;
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    ReactiveWebServerApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        when(integration.getProduct(PRODUCT_ID_OK))
+                .thenReturn(Mono.just(new Product(PRODUCT_ID_OK, "name", 1, "mock address")));
+        // The aggregate embeds the first page of each list, app.aggregate.max-embedded in application.yml
+        when(integration.getRecommendationPage(anyInt(), anyInt(), any(), any()))
+                .thenReturn(Mono.just(ResponseEntity.ok(List.of())));
+        when(integration.getReviewPage(anyInt(), anyInt(), any(), any()))
+                .thenReturn(Mono.just(ResponseEntity.ok(List.of())));
+        when(integration.getRecommendationPage(PRODUCT_ID_OK, 20, null, "desc")).thenReturn(Mono.just(ResponseEntity.ok()
+                .header(PageToken.TOTAL_COUNT_HEADER, "21")
+                .header(PageToken.NEXT_PAGE_TOKEN_HEADER, "next")
+                .body(List.of(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock address")))));
+        when(integration.getReviewPage(PRODUCT_ID_OK, 20, null, "desc")).thenReturn(Mono.just(ResponseEntity
+                .ok(List.of(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock address")))));
+        when(integration.getProduct(PRODUCT_ID_NOT_FOUND))
+                .thenReturn(Mono.error(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND)));
+        when(integration.getProduct(PRODUCT_ID_INVALID))
+                .thenReturn(Mono.error(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID)));
+    }
+
+    @Test
+    void runsOnNetty() {
+        assertInstanceOf(NettyWebServer.class, context.getWebServer());
+    }
+
+    @Test
+    void getProductById() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK)
+                .jsonPath("$.recommendations.length()").isEqualTo(1)
+                .jsonPath("$.recommendationCount").isEqualTo(21)
+                .jsonPath("$.recommendationsNextPage").isEqualTo("/product-composite/" + PRODUCT_ID_OK
+                        + "/recommendations?pageSize=20&order=desc&pageToken=next")
+                .jsonPath("$.reviews.length()").isEqualTo(1);
+        verify(integration, never()).getRecommendations(anyInt());
+        verify(integration, never()).getReviews(anyInt());
+    }
+
+    @Test
+    void getProductNotFound() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_NOT_FOUND)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.path").isEqualTo("/product-composite/" + PRODUCT_ID_NOT_FOUND)
+                .jsonPath("$.message").isEqualTo("NOT FOUND: " + PRODUCT_ID_NOT_FOUND);
+    }
+
+    @Test
+    void getProductInvalidInput() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_INVALID)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.path").isEqualTo("/product-composite/" + PRODUCT_ID_INVALID)
+                .jsonPath("$.message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
+    }
+
+    @Test
+    void getProductsByIds() {
+        List<Integer> ids = List.of(PRODUCT_ID_OK, PRODUCT_ID_NOT_FOUND);
+        when(integration.getProducts(ids)).thenReturn(Flux.just(new Product(PRODUCT_ID_OK, "name", 1, "mock address")));
+
+        client.get()
+                .uri("/product-composite?ids=" + PRODUCT_ID_OK + "," + PRODUCT_ID_NOT_FOUND + "," + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$['" + PRODUCT_ID_OK + "'].recommendations.length()").isEqualTo(1)
+                .jsonPath("$['" + PRODUCT_ID_OK + "'].recommendationCount").isEqualTo(21)
+                .jsonPath("$['" + PRODUCT_ID_OK + "'].reviews.length()").isEqualTo(1)
+                .jsonPath("$['" + PRODUCT_ID_NOT_FOUND + "']").isEmpty();
+        verify(integration, never()).getRecommendations(anyInt());
+        verify(integration, never()).getReviews(anyInt());
+    }
+
+    @Test
+    void getRecommendationPage() {
+        String pageToken = PageToken.encode(PRODUCT_ID_OK, 1);
+        when(integration.getRecommendationPage(PRODUCT_ID_OK, 1, null, "asc")).thenReturn(Mono.just(ResponseEntity.ok()
+                .header(PageToken.NEXT_PAGE_TOKEN_HEADER, pageToken)
+                .header(PageToken.TOTAL_COUNT_HEADER, "2")
+                .body(List.of(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock address")))));
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK + "/recommendations?pageSize=1")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(PageToken.NEXT_PAGE_TOKEN_HEADER, pageToken)
+                .expectHeader().valueEquals(PageToken.TOTAL_COUNT_HEADER, "2")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].recommendationId").isEqualTo(1);
+    }
+
+    @Test
+    void getReviewPageInvalidPageSize() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK + "/reviews?pageSize=0")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid pageSize: 0");
+    }
+
+    @Test
+    void createProductsReportsEachOutcome() {
+        when(integration.createProduct(any())).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            return product.getProductId() == PRODUCT_ID_INVALID
+                    ? Mono.error(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID))
+                    : Mono.just(product);
+        });
+
+        client.post()
+                .uri("/product-composite/batch")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(List.of(new ProductAggregate(PRODUCT_ID_OK, "name", 1, null, null, null),
+                        new ProductAggregate(PRODUCT_ID_INVALID, "name", 1, null, null, null)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].productId").isEqualTo(PRODUCT_ID_OK)
+                .jsonPath("$[0].status").isEqualTo(200)
+                .jsonPath("$[1].productId").isEqualTo(PRODUCT_ID_INVALID)
+                .jsonPath("$[1].status").isEqualTo(422)
+                .jsonPath("$[1].message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
+        verify(integration, never()).createReviews(any());
+    }
+
+    @Test
+    void deleteProductsWhileTheProductServiceIsDown() {
+        when(integration.deleteProduct(PRODUCT_ID_OK)).thenReturn(Mono.error(new WebClientRequestException(
+                new IOException("Connection refused"), HttpMethod.DELETE, URI.create("http://product/1"),
+                HttpHeaders.EMPTY)));
+        when(integration.deleteRecommendations(PRODUCT_ID_OK)).thenReturn(Mono.empty());
+        when(integration.deleteReviews(PRODUCT_ID_OK)).thenReturn(Mono.empty());
+
+        client.delete()
+                .uri("/product-composite?ids=" + PRODUCT_ID_OK + "," + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].productId").isEqualTo(PRODUCT_ID_OK)
+                .jsonPath("$[0].status").isEqualTo(502);
+    }
+}
@@ -0,0 +1,7 @@
+package se.magnus.microservices.composite.product;
+
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("reactive")
+class ReactiveProductServiceFailureTests extends ProductServiceFailureTests {
+}
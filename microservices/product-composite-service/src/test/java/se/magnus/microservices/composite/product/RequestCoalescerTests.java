@@ -0,0 +1,182 @@
+package se.magnus.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.composite.product.client.RequestDeadline;
+
+class RequestCoalescerTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService lookups = Executors.newVirtualThreadPerTaskExecutor();
+    private final RequestCoalescer<Integer, String> coalescer =
+            new RequestCoalescer<>("test", registry, lookups, Duration.ofSeconds(5));
+
+    @AfterEach
+    void tearDown() {
+        lookups.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsShareOneExecution() throws Exception {
+        int callers = 10;
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> coalescer.execute(1, () -> {
+                executions.incrementAndGet();
+                await(release);
+                return "value";
+            }));
+            while (registry.get("composite.requests.executed").counter().count() < 1) {
+                Thread.onSpinWait();
+            }
+
+            Future<?>[] followers = new Future<?>[callers - 1];
+            for (int i = 0; i < followers.length; i++) {
+                followers[i] = executor.submit(() -> coalescer.execute(1, () -> {
+                    executions.incrementAndGet();
+                    return "other value";
+                }));
+            }
+            while (registry.get("composite.requests.coalesced").counter().count() < followers.length) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+            for (Future<?> follower : followers) {
+                assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void waitingLookupsGiveUpAtTheirDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> coalescer.execute(1, () -> {
+                await(release);
+                return "value";
+            }));
+            while (registry.get("composite.requests.executed").counter().count() < 1) {
+                Thread.onSpinWait();
+            }
+
+            Future<?> follower = executor.submit(() -> {
+                RequestDeadline.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50));
+                try {
+                    return coalescer.execute(1, () -> "other value");
+                } finally {
+                    RequestDeadline.clear();
+                }
+            });
+            Exception e = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            ResponseStatusException cause = assertInstanceOf(ResponseStatusException.class, e.getCause());
+            assertEquals(HttpStatus.GATEWAY_TIMEOUT, cause.getStatusCode());
+            assertEquals("Deadline exceeded", cause.getReason());
+
+            // The shared lookup is not cancelled by the follower that gave up
+            release.countDown();
+            assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void theDeadlineOfTheFirstCallerDoesNotFailTheOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> {
+                RequestDeadline.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50));
+                try {
+                    return coalescer.execute(1, () -> {
+                        await(release);
+                        return "value";
+                    });
+                } finally {
+                    RequestDeadline.clear();
+                }
+            });
+            while (registry.get("composite.requests.executed").counter().count() < 1) {
+                Thread.onSpinWait();
+            }
+            Future<String> follower = executor.submit(() -> coalescer.execute(1, () -> "other value"));
+            while (registry.get("composite.requests.coalesced").counter().count() < 1) {
+                Thread.onSpinWait();
+            }
+
+            Exception e = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            ResponseStatusException cause = assertInstanceOf(ResponseStatusException.class, e.getCause());
+            assertEquals(HttpStatus.GATEWAY_TIMEOUT, cause.getStatusCode());
+
+            release.countDown();
+            assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void lookupsAfterAnInvalidationDoNotJoinAnEarlierLookup() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> beforeWrite = executor.submit(() -> coalescer.execute(1, () -> {
+                await(release);
+                return "before write";
+            }));
+            while (registry.get("composite.requests.executed").counter().count() < 1) {
+                Thread.onSpinWait();
+            }
+
+            coalescer.invalidate(1);
+            assertEquals("after write", coalescer.execute(1, () -> "after write"));
+            assertEquals(0, registry.get("composite.requests.coalesced").counter().count());
+
+            // The earlier lookup still completes for the callers that joined it
+            release.countDown();
+            assertEquals("before write", beforeWrite.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void completedLookupsAreNotReused() {
+        assertEquals("a", coalescer.execute(1, () -> "a"));
+        assertEquals("b", coalescer.execute(1, () -> "b"));
+        assertEquals(0, registry.get("composite.requests.coalesced").counter().count());
+    }
+
+    @Test
+    void failuresAreRethrown() {
+        assertThrows(NotFoundException.class, () -> coalescer.execute(1, () -> {
+            throw new NotFoundException("not found");
+        }));
+        assertEquals("c", coalescer.execute(1, () -> "c"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
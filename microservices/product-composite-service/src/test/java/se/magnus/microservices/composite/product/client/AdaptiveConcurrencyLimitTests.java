@@ -0,0 +1,47 @@
+package se.magnus.microservices.composite.product.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveConcurrencyLimitTests {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", registry, 2, 1, 3, 0.5,
+            Duration.ofSeconds(1));
+
+    @Test
+    void callsOverTheLimitAreRejected() throws Exception {
+        assertEquals(1, limit.acquire(Duration.ZERO));
+        assertEquals(2, limit.acquire(Duration.ZERO));
+        assertEquals(-1, limit.acquire(Duration.ofMillis(10)));
+
+        assertEquals(1, registry.get("composite.concurrency.rejected").counter().count());
+        assertEquals(2, registry.get("composite.concurrency.inflight").gauge().value());
+        assertEquals(0, registry.get("composite.concurrency.queued").gauge().value());
+    }
+
+    @Test
+    void fastCallsRaiseTheLimitUpToTheMax() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            limit.release(limit.acquire(Duration.ZERO), FAST, false);
+        }
+        assertEquals(3, registry.get("composite.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void slowOrFailedCallsLowerTheLimitDownToTheMin() throws Exception {
+        limit.release(limit.acquire(Duration.ZERO), SLOW, false);
+        assertEquals(1, limit.getLimit());
+
+        limit.release(limit.acquire(Duration.ZERO), FAST, true);
+        assertEquals(1, limit.getLimit());
+    }
+}
@@ -0,0 +1,107 @@
+package se.magnus.microservices.composite.product.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HedgingClientTests {
+
+    private static final int WINDOW_SIZE = 8;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Request.Options options = new Request.Options();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void slowRequestIsHedged() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            // The original request of the last call hangs, its hedge responds right away
+            if (calls.getAndIncrement() == WINDOW_SIZE) {
+                sleep(10_000);
+            }
+            return ok(request);
+        };
+        HedgingClient client = new HedgingClient(delegate, executor, registry, 0.95, 1.0, WINDOW_SIZE);
+
+        for (int i = 0; i <= WINDOW_SIZE; i++) {
+            assertEquals(200, client.execute(request(Request.HttpMethod.GET), options).status());
+        }
+
+        assertEquals(WINDOW_SIZE + 1, registry.get("composite.hedging.calls").counter().count());
+        assertEquals(1, registry.get("composite.hedging.hedges").counter().count());
+        assertEquals(1, registry.get("composite.hedging.wins").counter().count());
+    }
+
+    @Test
+    void noHedgeWithoutBudget() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            if (calls.getAndIncrement() == WINDOW_SIZE) {
+                sleep(200);
+            }
+            return ok(request);
+        };
+        HedgingClient client = new HedgingClient(delegate, executor, registry, 0.95, 0.0, WINDOW_SIZE);
+
+        for (int i = 0; i <= WINDOW_SIZE; i++) {
+            assertEquals(200, client.execute(request(Request.HttpMethod.GET), options).status());
+        }
+
+        assertEquals(WINDOW_SIZE + 1, calls.get());
+        assertEquals(0, registry.get("composite.hedging.hedges").counter().count());
+    }
+
+    @Test
+    void writesAreNotHedged() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            calls.incrementAndGet();
+            return ok(request);
+        };
+        HedgingClient client = new HedgingClient(delegate, executor, registry, 0.95, 1.0, WINDOW_SIZE);
+
+        assertEquals(200, client.execute(request(Request.HttpMethod.POST), options).status());
+
+        assertEquals(1, calls.get());
+        assertNull(registry.find("composite.hedging.calls").counter());
+    }
+
+    private static Request request(Request.HttpMethod method) {
+        RequestTemplate template = new RequestTemplate();
+        template.feignTarget(new Target.HardCodedTarget<>(Object.class, "test-service", "http://localhost"));
+        return Request.create(method, "http://localhost/test", Map.of(), null, UTF_8, template);
+    }
+
+    private static Response ok(Request request) {
+        return Response.builder().status(200).request(request).body(new byte[0]).build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
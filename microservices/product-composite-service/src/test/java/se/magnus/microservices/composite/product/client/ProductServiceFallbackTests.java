@@ -0,0 +1,53 @@
+package se.magnus.microservices.composite.product.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import se.magnus.microservices.api.core.product.Product;
+
+class ProductServiceFallbackTests {
+
+    private final ProductServiceFallback fallback = new ProductServiceFallback();
+
+    @Test
+    void failedReadFindsNoProduct() {
+        assertNull(fallback.create(new IOException("Connection refused")).getProduct(1));
+    }
+
+    @Test
+    void shedReadsAreServiceUnavailable() {
+        ProductService service = fallback.create(new RejectedExecutionException("Concurrency limit reached"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                assertThrows(ResponseStatusException.class, () -> service.getProduct(1)).getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                assertThrows(ResponseStatusException.class, () -> service.getProducts(List.of(1))).getStatusCode());
+    }
+
+    @Test
+    void failedWritesAreNotHidden() {
+        IllegalStateException cause = new IllegalStateException("Circuit open");
+        ProductService service = fallback.create(cause);
+
+        assertEquals(cause, assertThrows(IllegalStateException.class,
+                () -> service.createProduct(new Product(1, "name", 1, null))));
+        assertEquals(cause, assertThrows(IllegalStateException.class, () -> service.deleteProduct(1)));
+    }
+
+    @Test
+    void failedWriteWithACheckedCauseIsNotHidden() {
+        IOException cause = new IOException("Connection refused");
+        ProductService service = fallback.create(cause);
+
+        assertEquals(cause, assertThrows(IllegalStateException.class, () -> service.deleteProduct(1)).getCause());
+    }
+}
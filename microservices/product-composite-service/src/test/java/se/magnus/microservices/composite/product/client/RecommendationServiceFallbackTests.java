@@ -0,0 +1,72 @@
+package se.magnus.microservices.composite.product.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+
+class RecommendationServiceFallbackTests {
+
+    private final LastKnownGood lastKnownGood = new LastKnownGood(new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1));
+    private final RecommendationServiceFallback fallback = new RecommendationServiceFallback(lastKnownGood);
+
+    @Test
+    void failedCallServesTheLastKnownRecommendations() {
+        lastKnownGood.putRecommendations(1, List.of(recommendation(1, 1)));
+
+        List<Recommendation> recommendations = fallback.create(new IOException("Connection refused"))
+                .getRecommendations(1);
+
+        assertTrue(StaleList.isStale(recommendations));
+        assertEquals(1, recommendations.size());
+        assertEquals(1, recommendations.get(0).getRecommendationId());
+    }
+
+    @Test
+    void failedCallWithoutLastKnownRecommendationsServesAnEmptyStaleList() {
+        List<Recommendation> recommendations = fallback.create(new IOException("Connection refused"))
+                .getRecommendations(1);
+
+        assertTrue(StaleList.isStale(recommendations));
+        assertTrue(recommendations.isEmpty());
+    }
+
+    @Test
+    void staleListsAreNotRecorded() {
+        lastKnownGood.putRecommendations(1, List.of(recommendation(1, 1)));
+        lastKnownGood.putRecommendations(1, new StaleList<>(List.of()));
+
+        assertEquals(1, lastKnownGood.getRecommendations(1).size());
+    }
+
+    @Test
+    void invalidInputIsNotServedStale() {
+        lastKnownGood.putRecommendations(1, List.of(recommendation(1, 1)));
+        InvalidInputException cause = new InvalidInputException("Invalid productId: 1");
+        RecommendationService service = fallback.create(cause);
+
+        assertEquals(cause, assertThrows(InvalidInputException.class, () -> service.getRecommendations(1)));
+    }
+
+    @Test
+    void failedWriteIsNotHidden() {
+        IllegalStateException cause = new IllegalStateException("Circuit open");
+        RecommendationService service = fallback.create(cause);
+
+        assertEquals(cause, assertThrows(IllegalStateException.class, () -> service.deleteRecommendations(1)));
+    }
+
+    private static Recommendation recommendation(int productId, int recommendationId) {
+        return new Recommendation(productId, recommendationId, "author", 1, "content", "mock address");
+    }
+}
@@ -0,0 +1,67 @@
+package se.magnus.microservices.composite.product.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+
+class ServiceErrorDecoderTests {
+
+    // Configured like the ObjectMapper of Spring Boot
+    private final ServiceErrorDecoder decoder = new ServiceErrorDecoder(new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+
+    @Test
+    void notFoundIsDecodedWithoutStackTrace() {
+        Exception exception = decoder.decode("getProduct", response(404,
+                "{\"timestamp\":\"2024-01-01T00:00:00Z\",\"path\":\"/product/13\",\"status\":404,"
+                        + "\"error\":\"Not Found\",\"message\":\"No product found for productId: 13\"}"));
+
+        assertInstanceOf(NotFoundException.class, exception);
+        assertEquals("No product found for productId: 13", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    void invalidInputKeepsTheMessageOfTheService() {
+        Exception exception = decoder.decode("getProduct", response(422, "{\"message\":\"Invalid productId: -1\"}"));
+
+        assertInstanceOf(InvalidInputException.class, exception);
+        assertEquals("Invalid productId: -1", exception.getMessage());
+    }
+
+    @Test
+    void bodyWithoutErrorInfoLeavesTheMessageOut() {
+        assertNull(decoder.decode("getProduct", response(404, "<html></html>")).getMessage());
+    }
+
+    @Test
+    void otherStatusesAreDecodedAsByDefault() {
+        assertInstanceOf(FeignException.ServiceUnavailable.class, decoder.decode("getProduct", response(503, "")));
+    }
+
+    private static Response response(int status, String body) {
+        Request request = Request.create(Request.HttpMethod.GET, "/product/1", Map.of(), null, UTF_8, null);
+        return Response.builder()
+                .status(status)
+                .request(request)
+                .headers(Map.of())
+                .body(body, UTF_8)
+                .build();
+    }
+}
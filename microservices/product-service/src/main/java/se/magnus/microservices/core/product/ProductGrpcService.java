@@ -0,0 +1,53 @@
+package se.magnus.microservices.core.product;
+
+import static se.magnus.microservices.util.grpc.GrpcErrors.respondAsync;
+
+import org.springframework.stereotype.Component;
+
+import com.google.protobuf.Empty;
+
+import io.grpc.stub.StreamObserver;
+import se.magnus.microservices.api.core.product.grpc.ProductIdRequest;
+import se.magnus.microservices.api.core.product.grpc.ProductIdsRequest;
+import se.magnus.microservices.api.core.product.grpc.ProductList;
+import se.magnus.microservices.api.core.product.grpc.ProductMessage;
+import se.magnus.microservices.api.core.product.grpc.ProductMessages;
+import se.magnus.microservices.api.core.product.grpc.ProductServiceGrpc;
+
+/**
+ * gRPC endpoint of the product service, delegates to the REST controller so
+ * both transports share validation and error handling.
+ */
+@Component
+public class ProductGrpcService extends ProductServiceGrpc.ProductServiceImplBase {
+
+    private final ProductService productService;
+
+    public ProductGrpcService(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @Override
+    public void getProduct(ProductIdRequest request, StreamObserver<ProductMessage> responseObserver) {
+        respondAsync(responseObserver,
+                () -> productService.getProduct(request.getProductId()).map(ProductMessages::toMessage));
+    }
+
+    @Override
+    public void getProducts(ProductIdsRequest request, StreamObserver<ProductList> responseObserver) {
+        respondAsync(responseObserver,
+                () -> productService.getProducts(request.getProductIdsList()).map(ProductMessages::toMessage));
+    }
+
+    @Override
+    public void createProduct(ProductMessage request, StreamObserver<ProductMessage> responseObserver) {
+        respondAsync(responseObserver,
+                () -> productService.createProduct(ProductMessages.fromMessage(request)).map(ProductMessages::toMessage));
+    }
+
+    @Override
+    public void deleteProduct(ProductIdRequest request, StreamObserver<Empty> responseObserver) {
+        respondAsync(responseObserver,
+                () -> productService.deleteProduct(request.getProductId()).thenReturn(Empty.getDefaultInstance()));
+    }
+}
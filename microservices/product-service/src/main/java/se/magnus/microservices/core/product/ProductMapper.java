@@ -1,5 +1,7 @@
 package se.magnus.microservices.core.product;
 
+import java.util.List;
+
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -13,4 +15,6 @@ public interface ProductMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "version", ignore = true)
     ProductEntity apiToEntity(Product api);
+
+    List<Product> entityToApi(List<ProductEntity> entities);
 }
@@ -1,10 +1,24 @@
 package se.magnus.microservices.core.product;
 
-import java.util.Optional;
+import java.util.Collection;
 
-import org.springframework.data.repository.CrudRepository;
-import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
-public interface ProductRepository extends PagingAndSortingRepository<ProductEntity, String>, CrudRepository<ProductEntity, String> {
-    Optional<ProductEntity> findByProductId(int productId);
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ProductRepository extends ReactiveCrudRepository<ProductEntity, String> {
+    Mono<ProductEntity> findByProductId(int productId);
+
+    Flux<ProductEntity> findByProductIdInOrderByProductIdAsc(Collection<Integer> productIds);
+
+    Flux<ProductEntity> findAllBy(Pageable pageable);
+
+    /**
+     * Deletes the product in one deleteMany, without reading it first.
+     *
+     * @return the number of deleted documents
+     */
+    Mono<Long> deleteByProductId(int productId);
 }
@@ -1,17 +1,26 @@
 package se.magnus.microservices.core.product;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 import se.magnus.microservices.api.core.product.Product;
 import se.magnus.microservices.api.exceptions.InvalidInputException;
 import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.util.http.ETags;
 import se.magnus.microservices.util.http.ServiceUtil;
 
 @Slf4j
@@ -21,11 +30,14 @@ public class ProductService {
     private final ServiceUtil serviceUtil;
     private final ProductRepository repository;
     private final ProductMapper mapper;
+    private final int maxIdsPerRequest;
 
-    public ProductService(ServiceUtil serviceUtil, ProductRepository productRepository, ProductMapper productMapper) {
+    public ProductService(ServiceUtil serviceUtil, ProductRepository productRepository, ProductMapper productMapper,
+            @Value("${app.max-ids-per-request:200}") int maxIdsPerRequest) {
         this.serviceUtil = serviceUtil;
         this.repository = productRepository;
         this.mapper = productMapper;
+        this.maxIdsPerRequest = maxIdsPerRequest;
     }
 
     /**
@@ -40,52 +52,111 @@ public class ProductService {
      */
     @PostMapping(
         value    = "/product",
-        consumes = "application/json",
-        produces = "application/json")
-    public Product createProduct(@RequestBody Product body) {
-        try {
-            ProductEntity entity = mapper.apiToEntity(body);
-            ProductEntity newEntity = repository.save(entity);
-            log.debug("createProduct: entity created for productId: {}", body.getProductId());
-            return mapper.entityToApi(newEntity);
-        } catch (DuplicateKeyException exception) {
-            throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId(), exception);
-        }
+        consumes = { "application/json", "application/x-jackson-smile" },
+        produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<Product> createProduct(@RequestBody Product body) {
+        ProductEntity entity = mapper.apiToEntity(body);
+        return repository.save(entity)
+            .onErrorMap(DuplicateKeyException.class,
+                exception -> new InvalidInputException("Duplicate key, Product Id: " + body.getProductId(), exception))
+            .map(newEntity -> {
+                log.debug("createProduct: entity created for productId: {}", body.getProductId());
+                return mapper.entityToApi(newEntity);
+            });
     }
 
     /**
-     * Sample usage: "curl $HOST:$PORT/product/1".
+     * Sample usage: "curl -i $HOST:$PORT/product/1".
+     *
+     * The response carries an ETag of the stored version of the product, a request
+     * with a matching If-None-Match header is answered with 304 Not Modified.
      *
      * @param productId Id of the product
+     * @param exchange The current exchange, to evaluate If-None-Match on
      * @return the product, if found, else null
      */
     @GetMapping(
         value = "/product/{productId}",
-        produces = "application/json")
-    public Product getProduct(@PathVariable int productId) {
+        produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<ResponseEntity<Product>> getProduct(@PathVariable int productId, ServerWebExchange exchange) {
+        return findProduct(productId).map(entity -> {
+            // Decided on the version alone, a not modified product is neither mapped nor serialized
+            String eTag = ETags.of(entity.getId(), entity.getVersion());
+            if (exchange.checkNotModified(eTag)) {
+                log.debug("getProduct: not modified, productId: {}", productId);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            return ResponseEntity.ok().eTag(eTag).body(toApi(entity));
+        });
+    }
+
+    /**
+     * @param productId Id of the product
+     * @return the product, if found, else a NotFoundException
+     */
+    public Mono<Product> getProduct(int productId) {
+        return findProduct(productId).map(this::toApi);
+    }
+
+    private Mono<ProductEntity> findProduct(int productId) {
         log.debug("/product return the found product for productId={}", productId);
 
         if (productId < 1) {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
 
-        ProductEntity entity = repository.findByProductId(productId)
-            .orElseThrow(() -> new NotFoundException("No product found for productId: " + productId));
+        return repository.findByProductId(productId)
+            .switchIfEmpty(Mono.error(() -> new NotFoundException("No product found for productId: " + productId)));
+    }
 
+    private Product toApi(ProductEntity entity) {
         Product response = mapper.entityToApi(entity);
         response.setServiceAddress(serviceUtil.getServiceAddress());
         log.debug("getProduct: found productId: {}", response.getProductId());
         return response;
     }
 
+    /**
+     * Sample usage: "curl $HOST:$PORT/product?ids=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the products that were found, products that are not found are left out
+     */
+    @GetMapping(
+        value = "/product",
+        params = "ids",
+        produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<List<Product>> getProducts(@RequestParam("ids") List<Integer> productIds) {
+        log.debug("/product return the found products for {} productIds", productIds.size());
+
+        if (productIds.size() > maxIdsPerRequest) {
+            throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + maxIdsPerRequest);
+        }
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+
+        String serviceAddress = serviceUtil.getServiceAddress();
+        return repository.findByProductIdInOrderByProductIdAsc(productIds)
+            .collectList()
+            .map(entities -> {
+                List<Product> response = mapper.entityToApi(entities);
+                response.forEach(it -> it.setServiceAddress(serviceAddress));
+                log.debug("getProducts: found {} products", response.size());
+                return response;
+            });
+    }
+
     /**
      * Sample usage: "curl -X DELETE $HOST:$PORT/product/1".
      *
      * @param productId Id of the product
+     * @return the number of deleted products, 0 if there was none
      */
     @DeleteMapping(value = "/product/{productId}")
-    public void deleteProduct(@PathVariable int productId) {
+    public Mono<Long> deleteProduct(@PathVariable int productId) {
         log.debug("deleteProduct: tries to delete an entity with productId: {}", productId);
-        repository.findByProductId(productId).ifPresent(e -> repository.delete(e));
+        return repository.deleteByProductId(productId)
+                .doOnNext(deleted -> log.debug("deleteProduct: deleted {} entities", deleted));
     }
 }
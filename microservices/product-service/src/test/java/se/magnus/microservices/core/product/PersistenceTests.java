@@ -1,12 +1,8 @@
 package se.magnus.microservices.core.product;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertThrows;
-import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -16,11 +12,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.OptimisticLockingFailureException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort.Direction;
 
+import reactor.test.StepVerifier;
+
 @DataMongoTest
 class PersistenceTests extends MongoDbTestBase {
 
@@ -31,91 +28,111 @@ class PersistenceTests extends MongoDbTestBase {
 
     @BeforeEach
     void setupDb() {
-        repository.deleteAll();
+        StepVerifier.create(repository.deleteAll()).verifyComplete();
 
         ProductEntity entity = new ProductEntity(1, "n", 2);
-        savedEntity = repository.save(entity);
-
-        assertEquals(entity, savedEntity);
-        assertEquals(0, savedEntity.getVersion());
+        StepVerifier.create(repository.save(entity))
+                .expectNextMatches(createdEntity -> {
+                    savedEntity = createdEntity;
+                    return entity.equals(createdEntity) && createdEntity.getVersion() == 0;
+                })
+                .verifyComplete();
     }
 
     @Test
     void testCreate() {
         ProductEntity secondEntity = new ProductEntity(2, "n", 2);
-        repository.save(secondEntity);
-        ProductEntity foundEntity = repository.findByProductId(2).get();
-        assertEquals(foundEntity, secondEntity);
-        assertEquals(2, repository.count());
+        StepVerifier.create(repository.save(secondEntity))
+                .expectNextMatches(createdEntity -> secondEntity.getProductId() == createdEntity.getProductId())
+                .verifyComplete();
+
+        StepVerifier.create(repository.findByProductId(2))
+                .expectNext(secondEntity)
+                .verifyComplete();
+
+        StepVerifier.create(repository.count()).expectNext(2L).verifyComplete();
     }
 
     @Test
     void testUpdate() {
         savedEntity.setName("n2");
-        repository.save(savedEntity);
-        ProductEntity foundEntity = repository.findById(savedEntity.getId()).get();
-        assertEquals("n2", foundEntity.getName());
-        assertEquals(1, foundEntity.getVersion());
+        StepVerifier.create(repository.save(savedEntity))
+                .expectNextMatches(updatedEntity -> updatedEntity.getName().equals("n2"))
+                .verifyComplete();
+
+        StepVerifier.create(repository.findById(savedEntity.getId()))
+                .expectNextMatches(foundEntity -> foundEntity.getVersion() == 1 && foundEntity.getName().equals("n2"))
+                .verifyComplete();
     }
 
     @Test
     void testDelete() {
-        repository.delete(savedEntity);
-        assertFalse(repository.existsById(savedEntity.getId()));
+        StepVerifier.create(repository.delete(savedEntity)).verifyComplete();
+        StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void testDeleteByProductId() {
+        StepVerifier.create(repository.deleteByProductId(savedEntity.getProductId())).expectNext(1L).verifyComplete();
+        StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
+        StepVerifier.create(repository.deleteByProductId(savedEntity.getProductId())).expectNext(0L).verifyComplete();
     }
 
     @Test
     void testFindByProductId() {
-        Optional<ProductEntity> existingProduct = repository.findByProductId(savedEntity.getProductId());
-        assertTrue(existingProduct.isPresent());
-        assertEquals(savedEntity, existingProduct.get());
+        StepVerifier.create(repository.findByProductId(savedEntity.getProductId()))
+                .expectNext(savedEntity)
+                .verifyComplete();
     }
 
     @Test
     void testDuplicateError() {
-        assertThrows(DuplicateKeyException.class,
-                () -> repository.save(new ProductEntity(savedEntity.getProductId(), "n2", 2)));
+        StepVerifier.create(repository.save(new ProductEntity(savedEntity.getProductId(), "n2", 2)))
+                .expectError(DuplicateKeyException.class)
+                .verify();
     }
 
     @Test
     void testOptimisticLock() {
         // Store the saved entity into two separate entity objects
-        ProductEntity entity1 = repository.findById(savedEntity.getId()).get();
-        ProductEntity entity2 = repository.findById(savedEntity.getId()).get();
+        ProductEntity entity1 = repository.findById(savedEntity.getId()).block();
+        ProductEntity entity2 = repository.findById(savedEntity.getId()).block();
 
         // Update the entity using the first entity object
         entity1.setName("n1");
-        repository.save(entity1);
+        repository.save(entity1).block();
 
         // Update the entity using the second entity object
         // This should fail since the second entity now hold an old version number
         entity2.setName("n2");
-        assertThrows(OptimisticLockingFailureException.class, () -> repository.save(entity2));
+        StepVerifier.create(repository.save(entity2))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
 
         // Get the updated entity from the database and verify its new state
-        ProductEntity updatedEntity = repository.findById(savedEntity.getId()).get();
-        assertEquals("n1", updatedEntity.getName());
-        assertEquals(1, updatedEntity.getVersion());
+        StepVerifier.create(repository.findById(savedEntity.getId()))
+                .expectNextMatches(updatedEntity -> updatedEntity.getVersion() == 1 && updatedEntity.getName().equals("n1"))
+                .verifyComplete();
     }
 
     @Test
     void testPaging() {
-        repository.deleteAll();
+        StepVerifier.create(repository.deleteAll()).verifyComplete();
         List<ProductEntity> newProducts = IntStream.rangeClosed(1001, 1010)
                 .mapToObj(i -> new ProductEntity(i, "name-" + i, i))
                 .collect(Collectors.toList());
-        repository.saveAll(newProducts);
+        StepVerifier.create(repository.saveAll(newProducts)).expectNextCount(10).verifyComplete();
 
         Pageable pageable = PageRequest.of(0, 4, Direction.ASC, "productId");
-        pageable = testPageable(pageable, List.of(1001, 1002, 1003, 1004), true);
-        pageable = testPageable(pageable, List.of(1005, 1006, 1007, 1008), true);
-        pageable = testPageable(pageable, List.of(1009, 1010), false);
+        pageable = testPageable(pageable, List.of(1001, 1002, 1003, 1004));
+        pageable = testPageable(pageable, List.of(1005, 1006, 1007, 1008));
+        pageable = testPageable(pageable, List.of(1009, 1010));
+        testPageable(pageable, List.of());
     }
 
-    private Pageable testPageable(Pageable pageable, List<Integer> expectedProductIds, boolean expectedHasNext) {
-        Page<ProductEntity> page = repository.findAll(pageable);
-        assertEquals(expectedProductIds, page.getContent().stream().map(it -> it.getProductId()).collect(Collectors.toList()));
-        assertEquals(expectedHasNext, page.hasNext());
-        return page.nextPageable();
+    private Pageable testPageable(Pageable pageable, List<Integer> expectedProductIds) {
+        List<Integer> productIds = repository.findAllBy(pageable).map(ProductEntity::getProductId).collectList().block();
+        assertEquals(expectedProductIds, productIds);
+        return pageable.next();
     }
 }
@@ -1,10 +1,14 @@
 package se.magnus.microservices.core.product;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
@@ -17,9 +21,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import se.magnus.microservices.api.core.product.Product;
+import se.magnus.microservices.api.core.product.grpc.ProductIdRequest;
+import se.magnus.microservices.api.core.product.grpc.ProductMessage;
+import se.magnus.microservices.api.core.product.grpc.ProductServiceGrpc;
+import se.magnus.microservices.util.grpc.GrpcServer;
+import se.magnus.microservices.util.http.DeadlineWebFilter;
 
-@SpringBootTest(webEnvironment = RANDOM_PORT)
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "app.grpc.port=0")
 class ProductServiceApplicationTests extends MongoDbTestBase {
 
     @Autowired
@@ -28,24 +42,113 @@ class ProductServiceApplicationTests extends MongoDbTestBase {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private GrpcServer grpcServer;
+
     @BeforeEach
     void setupDb() {
-        repository.deleteAll();
+        repository.deleteAll().block();
     }
 
     @Test
     void getProductById() {
         int productId = 1;
         postAndVerifyProduct(productId, OK);
-        assertTrue(repository.findByProductId(productId).isPresent());
+        assertTrue(repository.findByProductId(productId).blockOptional().isPresent());
         getAndVerifyProduct(productId, OK).jsonPath("$.productId").isEqualTo(productId);
     }
 
+    @Test
+    void getProductsByIds() {
+        postAndVerifyProduct(1, OK);
+        postAndVerifyProduct(2, OK);
+        client.get()
+                .uri("/product?ids=1,2,13")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].productId").isEqualTo(1)
+                .jsonPath("$[1].productId").isEqualTo(2);
+    }
+
+    @Test
+    void getProductNotModified() {
+        postAndVerifyProduct(1, OK);
+        String eTag = client.get()
+                .uri("/product/1")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectBody()
+                .jsonPath("$.version").isEqualTo(0)
+                .returnResult()
+                .getResponseHeaders().getETag();
+
+        client.get()
+                .uri("/product/1")
+                .ifNoneMatch(eTag)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(NOT_MODIFIED)
+                .expectHeader().valueEquals("ETag", eTag)
+                .expectBody().isEmpty();
+
+        // A product created again under the same productId gets a new ETag
+        deleteAndVerifyProduct(1, OK);
+        postAndVerifyProduct(1, OK);
+        client.get()
+                .uri("/product/1")
+                .ifNoneMatch(eTag)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK);
+    }
+
+    @Test
+    void getProductAfterDeadline() {
+        postAndVerifyProduct(1, OK);
+        client.get()
+                .uri("/product/1")
+                .header(DeadlineWebFilter.BUDGET_HEADER, "0")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(GATEWAY_TIMEOUT)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void getProductOverGrpc() {
+        postAndVerifyProduct(1, OK);
+        ManagedChannel channel = Grpc
+                .newChannelBuilderForAddress("localhost", grpcServer.getPort(), InsecureChannelCredentials.create())
+                .build();
+        try {
+            ProductServiceGrpc.ProductServiceBlockingStub stub = ProductServiceGrpc.newBlockingStub(channel);
+
+            ProductMessage product = stub.getProduct(ProductIdRequest.newBuilder().setProductId(1).build());
+            assertEquals(1, product.getProductId());
+            assertEquals("Name 1", product.getName());
+
+            StatusRuntimeException notFound = assertThrows(StatusRuntimeException.class,
+                    () -> stub.getProduct(ProductIdRequest.newBuilder().setProductId(13).build()));
+            assertEquals(Status.Code.NOT_FOUND, notFound.getStatus().getCode());
+
+            StatusRuntimeException invalid = assertThrows(StatusRuntimeException.class,
+                    () -> stub.getProduct(ProductIdRequest.newBuilder().setProductId(-1).build()));
+            assertEquals(Status.Code.INVALID_ARGUMENT, invalid.getStatus().getCode());
+        } finally {
+            channel.shutdownNow();
+        }
+    }
+
     @Test
     void duplicateError() {
         int productId = 1;
         postAndVerifyProduct(productId, OK);
-        assertTrue(repository.findByProductId(productId).isPresent());
+        assertTrue(repository.findByProductId(productId).blockOptional().isPresent());
         postAndVerifyProduct(productId, UNPROCESSABLE_ENTITY)
                 .jsonPath("$.path").isEqualTo("/product")
                 .jsonPath("$.message").isEqualTo("Duplicate key, Product Id: " + productId);
@@ -55,10 +158,10 @@ class ProductServiceApplicationTests extends MongoDbTestBase {
     void deleteProduct() {
         int productId = 1;
         postAndVerifyProduct(productId, OK);
-        assertTrue(repository.findByProductId(productId).isPresent());
-        deleteAndVerifyProduct(productId, OK);
-        assertFalse(repository.findByProductId(productId).isPresent());
-        deleteAndVerifyProduct(productId, OK);
+        assertTrue(repository.findByProductId(productId).blockOptional().isPresent());
+        deleteAndVerifyProduct(productId, OK).jsonPath("$").isEqualTo(1);
+        assertFalse(repository.findByProductId(productId).blockOptional().isPresent());
+        deleteAndVerifyProduct(productId, OK).jsonPath("$").isEqualTo(0);
     }
 
     @Test
@@ -0,0 +1,85 @@
+package se.magnus.microservices.core.recommendation;
+
+import static se.magnus.microservices.util.grpc.GrpcErrors.respondAsync;
+
+import org.springframework.stereotype.Component;
+
+import com.google.protobuf.Empty;
+
+import io.grpc.stub.StreamObserver;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationList;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationMessage;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationMessages;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationPage;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationPageRequest;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationProductIdRequest;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationProductIdsRequest;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationServiceGrpc;
+import se.magnus.microservices.api.core.recommendation.grpc.RecommendationsByProductId;
+import se.magnus.microservices.util.http.ListView;
+import se.magnus.microservices.util.http.PageToken;
+
+/**
+ * gRPC endpoint of the recommendation service, delegates to the REST controller
+ * so both transports share validation and error handling.
+ */
+@Component
+public class RecommendationGrpcService extends RecommendationServiceGrpc.RecommendationServiceImplBase {
+
+    private final RecommendationService recommendationService;
+
+    public RecommendationGrpcService(RecommendationService recommendationService) {
+        this.recommendationService = recommendationService;
+    }
+
+    @Override
+    public void getRecommendations(RecommendationProductIdRequest request,
+            StreamObserver<RecommendationList> responseObserver) {
+        respondAsync(responseObserver, () -> recommendationService.getRecommendations(request.getProductId())
+                .map(RecommendationMessages::toMessage));
+    }
+
+    @Override
+    public void getRecommendationPage(RecommendationPageRequest request, StreamObserver<RecommendationPage> responseObserver) {
+        respondAsync(responseObserver, () -> recommendationService
+                .getRecommendationPage(request.getProductId(), request.getPageSize(),
+                        request.hasPageToken() ? request.getPageToken() : null,
+                        request.getOrder().isEmpty() ? "asc" : request.getOrder(),
+                        request.getView().isEmpty() ? ListView.FULL : request.getView())
+                .map(page -> {
+                    RecommendationPage.Builder builder = RecommendationPage.newBuilder()
+                            .addAllRecommendations(RecommendationMessages.toMessage(page.getBody()).getRecommendationsList());
+                    String nextPageToken = page.getHeaders().getFirst(PageToken.NEXT_PAGE_TOKEN_HEADER);
+                    if (nextPageToken != null) {
+                        builder.setNextPageToken(nextPageToken);
+                    }
+                    String totalCount = page.getHeaders().getFirst(PageToken.TOTAL_COUNT_HEADER);
+                    if (totalCount != null) {
+                        builder.setTotalCount(Integer.parseInt(totalCount));
+                    }
+                    return builder.build();
+                }));
+    }
+
+    @Override
+    public void getRecommendationsByProductIds(RecommendationProductIdsRequest request,
+            StreamObserver<RecommendationsByProductId> responseObserver) {
+        respondAsync(responseObserver, () -> recommendationService
+                .getRecommendationsByProductIds(request.getProductIdsList())
+                .map(RecommendationMessages::toMessage));
+    }
+
+    @Override
+    public void createRecommendation(RecommendationMessage request,
+            StreamObserver<RecommendationMessage> responseObserver) {
+        respondAsync(responseObserver, () -> recommendationService
+                .createRecommendation(RecommendationMessages.fromMessage(request))
+                .map(RecommendationMessages::toMessage));
+    }
+
+    @Override
+    public void deleteRecommendations(RecommendationProductIdRequest request, StreamObserver<Empty> responseObserver) {
+        respondAsync(responseObserver, () -> recommendationService.deleteRecommendations(request.getProductId())
+                .thenReturn(Empty.getDefaultInstance()));
+    }
+}
@@ -22,4 +22,11 @@ public interface RecommendationMapper {
     List<Recommendation> entityToApi(List<RecommendationEntity> apiList);
 
     List<RecommendationEntity> apiToEntity(List<Recommendation> entityList);
+
+    @Mapping(target = "rate", source = "rating")
+    @Mapping(target = "content", ignore = true)
+    @Mapping(target = "serviceAddress", ignore = true)
+    Recommendation summaryToApi(RecommendationSummary summary);
+
+    List<Recommendation> summaryToApi(List<RecommendationSummary> summaries);
 }
@@ -1,9 +1,48 @@
 package se.magnus.microservices.core.recommendation;
 
-import java.util.List;
+import java.util.Collection;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
-public interface RecommendationRepository extends CrudRepository<RecommendationEntity, String> {
-    List<RecommendationEntity> findByProductId(int productId);
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface RecommendationRepository extends ReactiveCrudRepository<RecommendationEntity, String> {
+    Flux<RecommendationEntity> findByProductId(int productId);
+
+    Mono<RecommendationEntity> findByProductIdAndRecommendationId(int productId, int recommendationId);
+
+    /**
+     * Reads RecommendationEntity or, with RecommendationSummary as type, only the fields of the summary, so the
+     * content is not returned by the database. The same goes for the list methods below.
+     */
+    <T> Flux<T> findByProductIdOrderByRecommendationIdAsc(int productId, Limit limit, Class<T> type);
+
+    <T> Flux<T> findByProductIdOrderByRecommendationIdDesc(int productId, Limit limit, Class<T> type);
+
+    <T> Flux<T> findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(int productId,
+            int recommendationId, Limit limit, Class<T> type);
+
+    <T> Flux<T> findByProductIdAndRecommendationIdLessThanOrderByRecommendationIdDesc(int productId,
+            int recommendationId, Limit limit, Class<T> type);
+
+    Mono<Long> countByProductId(int productId);
+
+    /**
+     * Deletes the recommendations of a product in one deleteMany, without reading them first.
+     *
+     * @return the number of deleted documents
+     */
+    Mono<Long> deleteByProductId(int productId);
+
+    Flux<RecommendationEntity> findByProductIdInOrderByProductIdAscRecommendationIdAsc(
+            Collection<Integer> productIds, Limit limit);
+
+    /**
+     * Reads the recommendations of a product from a cursor, a batch at a time as the subscriber requests them.
+     */
+    @Meta(cursorBatchSize = 100)
+    Flux<RecommendationEntity> streamByProductIdOrderByRecommendationIdAsc(int productId);
 }
@@ -1,18 +1,34 @@
 package se.magnus.microservices.core.recommendation;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import se.magnus.microservices.api.core.recommendation.Recommendation;
 import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.util.http.ETags;
+import se.magnus.microservices.util.http.ListView;
+import se.magnus.microservices.util.http.PageToken;
 import se.magnus.microservices.util.http.ServiceUtil;
 
 @Slf4j
@@ -22,13 +38,22 @@ public class RecommendationService {
     private final ServiceUtil serviceUtil;
     private final RecommendationRepository repository;
     private final RecommendationMapper mapper;
+    private final int maxIdsPerRequest;
+    private final int maxResultsPerRequest;
+    private final int maxPageSize;
 
     public RecommendationService(ServiceUtil serviceUtil,
             RecommendationRepository repository,
-            RecommendationMapper mapper) {
+            RecommendationMapper mapper,
+            @Value("${app.max-ids-per-request:200}") int maxIdsPerRequest,
+            @Value("${app.max-results-per-request:5000}") int maxResultsPerRequest,
+            @Value("${app.max-page-size:100}") int maxPageSize) {
         this.serviceUtil = serviceUtil;
         this.repository = repository;
         this.mapper = mapper;
+        this.maxIdsPerRequest = maxIdsPerRequest;
+        this.maxResultsPerRequest = maxResultsPerRequest;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
@@ -41,35 +66,80 @@ public class RecommendationService {
      * @param body A JSON representation of the new recommendation
      * @return A JSON representation of the newly created recommendation
      */
-    @PostMapping(value = "/recommendation", consumes = "application/json", produces = "application/json")
-    public Recommendation createRecommendation(@RequestBody Recommendation body) {
-        try {
-            RecommendationEntity entity = mapper.apiToEntity(body);
-            RecommendationEntity newEntity = repository.save(entity);
-            log.debug("createRecommendation: created a recommendation entity: {}/{}",
-                    body.getProductId(), body.getRecommendationId());
-            return mapper.entityToApi(newEntity);
-        } catch (DuplicateKeyException e) {
-            throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId()
-                    + ", Recommendation Id:" + body.getRecommendationId());
-        }
+    @PostMapping(value = "/recommendation", consumes = { "application/json", "application/x-jackson-smile" }, produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<Recommendation> createRecommendation(@RequestBody Recommendation body) {
+        RecommendationEntity entity = mapper.apiToEntity(body);
+        return repository.save(entity)
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new InvalidInputException("Duplicate key, Product Id: " + body.getProductId()
+                                + ", Recommendation Id:" + body.getRecommendationId()))
+                .map(newEntity -> {
+                    log.debug("createRecommendation: created a recommendation entity: {}/{}",
+                            body.getProductId(), body.getRecommendationId());
+                    return mapper.entityToApi(newEntity);
+                });
     }
 
     /**
-     * Sample usage: "curl $HOST:$PORT/recommendation?productId=1".
+     * Sample usage: "curl -i $HOST:$PORT/recommendation?productId=1&view=summary".
+     *
+     * The response carries an ETag of the ids and stored versions of the recommendations, a
+     * request with a matching If-None-Match header is answered with 304 Not Modified.
      *
      * @param productId Id of the product
-     * @return the recommendations of the product
+     * @param view full or summary, summary leaves out the content of the recommendations, full if left out
+     * @param exchange The current exchange, to evaluate If-None-Match on
+     * @return the recommendations of the product, ordered by recommendationId
      */
-    @GetMapping(value = "/recommendation", produces = "application/json")
-    public List<Recommendation> getRecommendations(@RequestParam("productId") int productId) {
+    @GetMapping(value = "/recommendation", produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<ResponseEntity<List<Recommendation>>> getRecommendations(@RequestParam("productId") int productId,
+            @RequestParam(value = "view", defaultValue = ListView.FULL) String view, ServerWebExchange exchange) {
+        if (ListView.isSummary(view)) {
+            return findRecommendations(productId, RecommendationSummary.class).map(summaries -> {
+                String eTag = ETags.of(summaries, RecommendationSummary::id, RecommendationSummary::version);
+                return respond(productId, exchange, ListView.summaryETag(eTag), () -> mapper.summaryToApi(summaries));
+            });
+        }
+        return findRecommendations(productId, RecommendationEntity.class).map(entities -> respond(productId, exchange,
+                ETags.of(entities, RecommendationEntity::getId, RecommendationEntity::getVersion),
+                () -> mapper.entityToApi(entities)));
+    }
+
+    /**
+     * @param productId Id of the product
+     * @return the recommendations of the product, ordered by recommendationId
+     */
+    public Mono<List<Recommendation>> getRecommendations(int productId) {
+        return findRecommendations(productId, RecommendationEntity.class)
+                .map(entities -> withServiceAddress(mapper.entityToApi(entities)));
+    }
 
+    private <T> Mono<List<T>> findRecommendations(int productId, Class<T> type) {
         if (productId < 1) {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
 
-        List<RecommendationEntity> entities = repository.findByProductId(productId);
-        List<Recommendation> list = mapper.entityToApi(entities);
+        // Read one more than allowed to detect a response that would exceed the limit
+        return repository.findByProductIdOrderByRecommendationIdAsc(productId, Limit.of(maxResultsPerRequest + 1), type)
+                .collectList()
+                .doOnNext(recommendations -> {
+                    if (recommendations.size() > maxResultsPerRequest) {
+                        throw new InvalidInputException("Too many recommendations for productId: " + productId
+                                + ", max: " + maxResultsPerRequest + ", use pageSize and pageToken to page through them");
+                    }
+                });
+    }
+
+    private ResponseEntity<List<Recommendation>> respond(int productId, ServerWebExchange exchange, String eTag,
+            Supplier<List<Recommendation>> recommendations) {
+        if (exchange.checkNotModified(eTag)) {
+            log.debug("getRecommendations: not modified, productId: {}", productId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(withServiceAddress(recommendations.get()));
+    }
+
+    private List<Recommendation> withServiceAddress(List<Recommendation> list) {
         list.forEach(it -> it.setServiceAddress(serviceUtil.getServiceAddress()));
 
         log.debug("getRecommendations: response size: {}", list.size());
@@ -77,15 +147,199 @@ public class RecommendationService {
         return list;
     }
 
+    /**
+     * Sample usage: "curl -i $HOST:$PORT/recommendation?productId=1&recommendationId=1".
+     *
+     * The full recommendation, content included, of an item of a summary list. The response
+     * carries an ETag of the stored version of the recommendation, a request with a matching
+     * If-None-Match header is answered with 304 Not Modified.
+     *
+     * @param productId Id of the product
+     * @param recommendationId Id of the recommendation
+     * @param exchange The current exchange, to evaluate If-None-Match on
+     * @return the recommendation, if found, else a NotFoundException
+     */
+    @GetMapping(value = "/recommendation", params = "recommendationId", produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<ResponseEntity<Recommendation>> getRecommendation(@RequestParam("productId") int productId,
+            @RequestParam("recommendationId") int recommendationId, ServerWebExchange exchange) {
+
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        if (recommendationId < 1) {
+            throw new InvalidInputException("Invalid recommendationId: " + recommendationId);
+        }
+
+        return repository.findByProductIdAndRecommendationId(productId, recommendationId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No recommendation found for productId: "
+                        + productId + ", recommendationId: " + recommendationId)))
+                .map(entity -> {
+                    String eTag = ETags.of(entity.getId(), entity.getVersion());
+                    if (exchange.checkNotModified(eTag)) {
+                        log.debug("getRecommendation: not modified, productId: {}, recommendationId: {}", productId,
+                                recommendationId);
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                    }
+                    Recommendation recommendation = mapper.entityToApi(entity);
+                    recommendation.setServiceAddress(serviceUtil.getServiceAddress());
+                    return ResponseEntity.ok().eTag(eTag).body(recommendation);
+                });
+    }
+
+    /**
+     * Sample usage: "curl -i $HOST:$PORT/recommendation?productId=1&pageSize=20".
+     *
+     * The next page is requested with the pageToken returned in the X-Next-Page-Token
+     * header, the header is left out on the last page. The first page also carries the
+     * number of recommendations of the product in the X-Total-Count header.
+     *
+     * @param productId Id of the product
+     * @param pageSize Maximum number of recommendations in the page
+     * @param pageToken Token of the page, from the previous response, none for the first page
+     * @param order asc or desc, the order of the recommendationIds, asc if left out
+     * @param view full or summary, summary leaves out the content of the recommendations, full if left out
+     * @return a page of the recommendations of the product, ordered by recommendationId
+     */
+    @GetMapping(value = "/recommendation", params = "pageSize", produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<ResponseEntity<List<Recommendation>>> getRecommendationPage(@RequestParam("productId") int productId,
+            @RequestParam("pageSize") int pageSize, @RequestParam(value = "pageToken", required = false) String pageToken,
+            @RequestParam(value = "order", defaultValue = "asc") String order,
+            @RequestParam(value = "view", defaultValue = ListView.FULL) String view) {
+
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidInputException("Invalid pageSize: " + pageSize + ", max: " + maxPageSize);
+        }
+
+        boolean descending = PageToken.isDescending(order);
+        boolean summary = ListView.isSummary(view);
+
+        // Read one more than the page to find out if there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+        Integer lastRecommendationId = pageToken == null ? null : PageToken.decode(pageToken, productId);
+        Flux<Recommendation> recommendations = summary
+                ? findPage(productId, lastRecommendationId, descending, limit, RecommendationSummary.class)
+                        .map(mapper::summaryToApi)
+                : findPage(productId, lastRecommendationId, descending, limit, RecommendationEntity.class)
+                        .map(mapper::entityToApi);
+        Mono<ResponseEntity.BodyBuilder> response = lastRecommendationId == null
+                ? repository.countByProductId(productId)
+                        .map(count -> ResponseEntity.ok().header(PageToken.TOTAL_COUNT_HEADER, Long.toString(count)))
+                : Mono.just(ResponseEntity.ok());
+
+        String serviceAddress = serviceUtil.getServiceAddress();
+        return Mono.zip(recommendations.collectList(), response).map(pageAndResponse -> {
+            List<Recommendation> list = pageAndResponse.getT1();
+            ResponseEntity.BodyBuilder builder = pageAndResponse.getT2();
+            if (list.size() > pageSize) {
+                list = list.subList(0, pageSize);
+                builder.header(PageToken.NEXT_PAGE_TOKEN_HEADER,
+                        PageToken.encode(productId, list.get(pageSize - 1).getRecommendationId()));
+            }
+
+            list.forEach(it -> it.setServiceAddress(serviceAddress));
+
+            log.debug("getRecommendationPage: response size: {}", list.size());
+
+            return builder.body(list);
+        });
+    }
+
+    private <T> Flux<T> findPage(int productId, Integer lastRecommendationId, boolean descending, Limit limit,
+            Class<T> type) {
+        if (lastRecommendationId == null) {
+            return descending
+                    ? repository.findByProductIdOrderByRecommendationIdDesc(productId, limit, type)
+                    : repository.findByProductIdOrderByRecommendationIdAsc(productId, limit, type);
+        }
+        return descending
+                ? repository.findByProductIdAndRecommendationIdLessThanOrderByRecommendationIdDesc(productId,
+                        lastRecommendationId, limit, type)
+                : repository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId,
+                        lastRecommendationId, limit, type);
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/recommendation/stream?productId=1".
+     *
+     * Streams the recommendations of the product as newline delimited JSON, read
+     * from a database cursor as the client consumes them.
+     *
+     * @param productId Id of the product
+     * @return the recommendations of the product, ordered by recommendationId
+     */
+    @GetMapping(value = "/recommendation/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Recommendation> streamRecommendations(@RequestParam("productId") int productId) {
+
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+
+        String serviceAddress = serviceUtil.getServiceAddress();
+        return repository.streamByProductIdOrderByRecommendationIdAsc(productId)
+                .map(entity -> {
+                    Recommendation recommendation = mapper.entityToApi(entity);
+                    recommendation.setServiceAddress(serviceAddress);
+                    return recommendation;
+                });
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/recommendation?productIds=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the recommendations grouped by productId, products without recommendations are left out
+     */
+    @GetMapping(value = "/recommendation", params = "productIds", produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<Map<Integer, List<Recommendation>>> getRecommendationsByProductIds(
+            @RequestParam("productIds") List<Integer> productIds) {
+
+        if (productIds.size() > maxIdsPerRequest) {
+            throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + maxIdsPerRequest);
+        }
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+
+        String serviceAddress = serviceUtil.getServiceAddress();
+        // Read one more than allowed to detect a response that would exceed the limit
+        return repository.findByProductIdInOrderByProductIdAscRecommendationIdAsc(productIds,
+                Limit.of(maxResultsPerRequest + 1))
+                .collectList()
+                .map(entities -> {
+                    if (entities.size() > maxResultsPerRequest) {
+                        throw new InvalidInputException(
+                                "Too many recommendations for the requested productIds, max: " + maxResultsPerRequest);
+                    }
+
+                    Map<Integer, List<Recommendation>> response = entities.stream()
+                            .map(entity -> {
+                                Recommendation recommendation = mapper.entityToApi(entity);
+                                recommendation.setServiceAddress(serviceAddress);
+                                return recommendation;
+                            })
+                            .collect(Collectors.groupingBy(Recommendation::getProductId, LinkedHashMap::new,
+                                    Collectors.toList()));
+
+                    log.debug("getRecommendationsByProductIds: response size: {}", entities.size());
+
+                    return response;
+                });
+    }
+
     /**
      * Sample usage: "curl -X DELETE $HOST:$PORT/recommendation?productId=1".
      *
      * @param productId Id of the product
+     * @return the number of deleted recommendations, 0 if there was none
      */
     @DeleteMapping(value = "/recommendation")
-    public void deleteRecommendations(@RequestParam(value = "productId", required = true) int productId) {
+    public Mono<Long> deleteRecommendations(@RequestParam(value = "productId", required = true) int productId) {
         log.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}",
                 productId);
-        repository.deleteAll(repository.findByProductId(productId));
+        return repository.deleteByProductId(productId)
+                .doOnNext(deleted -> log.debug("deleteRecommendations: deleted {} entities", deleted));
     }
 }
@@ -0,0 +1,8 @@
+package se.magnus.microservices.core.recommendation;
+
+/**
+ * A recommendation without its content, read with a field projection that returns only these fields.
+ */
+public record RecommendationSummary(String id, Integer version, int productId, int recommendationId, String author,
+        int rating) {
+}
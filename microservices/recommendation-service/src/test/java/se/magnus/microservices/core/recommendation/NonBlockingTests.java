@@ -0,0 +1,98 @@
+package se.magnus.microservices.core.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static se.magnus.microservices.util.test.LoadDriver.exchange;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.util.test.BlockingCalls;
+import se.magnus.microservices.util.test.LoadDriver;
+
+/**
+ * Runs the recommendation API at high concurrency with BlockHound installed, which reports every
+ * blocking call made on an event loop thread of the server or of the Mongo driver.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "app.grpc.port=0")
+class NonBlockingTests extends MongoDbTestBase {
+
+    private static final int PRODUCTS = 100;
+    private static final int RECOMMENDATIONS_PER_PRODUCT = 5;
+    private static final int REQUESTS = 10_000;
+    private static final int CONCURRENCY = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RecommendationRepository repository;
+
+    private LoadDriver driver;
+
+    @BeforeAll
+    static void installBlockHound() {
+        BlockingCalls.install();
+    }
+
+    @BeforeEach
+    void setup() {
+        repository.deleteAll().block();
+        BlockingCalls.clear();
+        driver = new LoadDriver(port, CONCURRENCY);
+    }
+
+    @AfterEach
+    void closeDriver() {
+        driver.close();
+    }
+
+    @Test
+    void blockingCallIsDetected() {
+        assertTrue(BlockingCalls.detectsBlockingCall());
+    }
+
+    @Test
+    void concurrentRequestsDoNotBlock() {
+        Map<HttpStatus, Long> created = driver.run(Flux.range(0, PRODUCTS * RECOMMENDATIONS_PER_PRODUCT),
+                i -> postRecommendation(i / RECOMMENDATIONS_PER_PRODUCT + 1, i % RECOMMENDATIONS_PER_PRODUCT + 1));
+        assertEquals(Map.of(HttpStatus.OK, (long) PRODUCTS * RECOMMENDATIONS_PER_PRODUCT), created);
+
+        Map<HttpStatus, Long> statuses = driver.run(Flux.range(0, REQUESTS), i -> switch (i % 10) {
+            // A duplicate create fails in the driver and is mapped to 422
+            case 0 -> postRecommendation(i % PRODUCTS + 1, 1);
+            case 1 -> exchange(driver.client().get().uri("/recommendation?productIds={a},{b}", i % PRODUCTS + 1,
+                    (i + 1) % PRODUCTS + 1));
+            case 2 -> exchange(driver.client().get().uri("/recommendation?productId={productId}&pageSize=2",
+                    i % PRODUCTS + 1));
+            case 3 -> exchange(driver.client().get().uri("/recommendation/stream?productId={productId}",
+                    i % PRODUCTS + 1).accept(MediaType.APPLICATION_NDJSON));
+            default -> exchange(driver.client().get().uri("/recommendation?productId={productId}", i % PRODUCTS + 1));
+        });
+
+        assertEquals(Map.of(
+                HttpStatus.OK, REQUESTS * 9L / 10,
+                HttpStatus.UNPROCESSABLE_ENTITY, REQUESTS / 10L), statuses);
+        assertEquals(List.of(), BlockingCalls.get());
+    }
+
+    private Mono<HttpStatus> postRecommendation(int productId, int recommendationId) {
+        return exchange(driver.client().post().uri("/recommendation").bodyValue(new Recommendation(productId,
+                recommendationId, "Author" + recommendationId, recommendationId, "Content " + recommendationId,
+                "SA")));
+    }
+}
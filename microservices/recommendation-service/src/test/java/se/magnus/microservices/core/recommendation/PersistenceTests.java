@@ -1,8 +1,6 @@
 package se.magnus.microservices.core.recommendation;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertThrows;
 
 import java.util.List;
 
@@ -12,6 +10,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+
+import reactor.test.StepVerifier;
 
 @DataMongoTest
 public class PersistenceTests extends MongoDbTestBase {
@@ -23,10 +24,10 @@ public class PersistenceTests extends MongoDbTestBase {
 
     @BeforeEach
     void setupDb() {
-        repository.deleteAll();
+        StepVerifier.create(repository.deleteAll()).verifyComplete();
 
         RecommendationEntity entity = new RecommendationEntity(1, 2, "a", 3, "c");
-        savedEntity = repository.save(entity);
+        savedEntity = repository.save(entity).block();
 
         assertEquals(entity, savedEntity);
     }
@@ -34,60 +35,82 @@ public class PersistenceTests extends MongoDbTestBase {
     @Test
     void create() {
         RecommendationEntity newEntity = new RecommendationEntity(2, 1, "a", 3, "c");
-        repository.save(newEntity);
+        StepVerifier.create(repository.save(newEntity)).expectNextCount(1).verifyComplete();
 
-        RecommendationEntity foundEntity = repository.findById(newEntity.getId()).get();
-        assertEquals(foundEntity, newEntity);
+        StepVerifier.create(repository.findById(newEntity.getId()))
+                .expectNext(newEntity)
+                .verifyComplete();
 
-        assertEquals(2, repository.count());
+        StepVerifier.create(repository.count()).expectNext(2L).verifyComplete();
     }
 
     @Test
     void update() {
         savedEntity.setAuthor("a2");
-        repository.save(savedEntity);
+        StepVerifier.create(repository.save(savedEntity)).expectNextCount(1).verifyComplete();
 
-        RecommendationEntity foundEnity = repository.findById(savedEntity.getId()).get();
-        assertEquals(1, (long) foundEnity.getVersion());
-        assertEquals("a2", foundEnity.getAuthor());
+        StepVerifier.create(repository.findById(savedEntity.getId()))
+                .expectNextMatches(foundEntity -> foundEntity.getVersion() == 1 && foundEntity.getAuthor().equals("a2"))
+                .verifyComplete();
     }
 
     @Test
     void delete() {
-        repository.delete(savedEntity);
-        assertFalse(repository.existsById(savedEntity.getId()));
+        StepVerifier.create(repository.delete(savedEntity)).verifyComplete();
+        StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void deleteByProductId() {
+        StepVerifier.create(repository.saveAll(List.of(
+                new RecommendationEntity(1, 3, "a", 3, "c"),
+                new RecommendationEntity(2, 1, "a", 3, "c"))))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        StepVerifier.create(repository.deleteByProductId(1)).expectNext(2L).verifyComplete();
+        StepVerifier.create(repository.count()).expectNext(1L).verifyComplete();
+        StepVerifier.create(repository.deleteByProductId(1)).expectNext(0L).verifyComplete();
+    }
+
+    @Test
+    void getSummariesByProductId() {
+        StepVerifier.create(repository.findByProductIdOrderByRecommendationIdAsc(savedEntity.getProductId(),
+                Limit.of(10), RecommendationSummary.class))
+                .expectNext(new RecommendationSummary(savedEntity.getId(), 0, 1, 2, "a", 3))
+                .verifyComplete();
     }
 
     @Test
     void getByProductId() {
-        List<RecommendationEntity> entities = repository.findByProductId(savedEntity.getProductId());
-        assertEquals(1, entities.size());
-        assertEquals(savedEntity, entities.get(0));
+        StepVerifier.create(repository.findByProductId(savedEntity.getProductId()))
+                .expectNext(savedEntity)
+                .verifyComplete();
     }
 
     @Test
     void duplicateError() {
         RecommendationEntity entity = new RecommendationEntity(1, 2, "a2", 5, "abc");
-        assertThrows(DuplicateKeyException.class, () -> repository.save(entity));
+        StepVerifier.create(repository.save(entity)).expectError(DuplicateKeyException.class).verify();
     }
 
     @Test
     void optimisticLockError() {
         // Store the saved entity in two separate entity objects
-        RecommendationEntity entity1 = repository.findById(savedEntity.getId()).get();
-        RecommendationEntity entity2 = repository.findById(savedEntity.getId()).get();
+        RecommendationEntity entity1 = repository.findById(savedEntity.getId()).block();
+        RecommendationEntity entity2 = repository.findById(savedEntity.getId()).block();
 
         // Update the entity using the first entity object
         entity1.setAuthor("a1");
-        repository.save(entity1);
+        repository.save(entity1).block();
 
         // Update the entity using the second entity object.
         entity2.setAuthor("a2");
-        assertThrows(OptimisticLockingFailureException.class, () -> repository.save(entity2));
+        StepVerifier.create(repository.save(entity2)).expectError(OptimisticLockingFailureException.class).verify();
 
         // Get the updated entity from the database and verify its new sate
-        RecommendationEntity updateEntity = repository.findById(savedEntity.getId()).get();
-        assertEquals(1, (long) updateEntity.getVersion());
-        assertEquals("a1", updateEntity.getAuthor());
+        StepVerifier.create(repository.findById(savedEntity.getId()))
+                .expectNextMatches(updatedEntity -> updatedEntity.getVersion() == 1 && updatedEntity.getAuthor().equals("a1"))
+                .verifyComplete();
     }
 }
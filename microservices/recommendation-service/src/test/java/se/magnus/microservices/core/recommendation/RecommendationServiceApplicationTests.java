@@ -1,23 +1,30 @@
 package se.magnus.microservices.core.recommendation;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import reactor.core.publisher.Mono;
 import se.magnus.microservices.api.core.recommendation.Recommendation;
+import se.magnus.microservices.util.http.PageToken;
 
-@SpringBootTest(webEnvironment = RANDOM_PORT)
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "app.grpc.port=0")
 class RecommendationServiceApplicationTests extends MongoDbTestBase {
 
     @Autowired
@@ -28,7 +35,7 @@ class RecommendationServiceApplicationTests extends MongoDbTestBase {
 
     @BeforeEach
     void setupDb() {
-        repository.deleteAll();
+        repository.deleteAll().block();
     }
 
     @Test
@@ -39,7 +46,7 @@ class RecommendationServiceApplicationTests extends MongoDbTestBase {
         postAndVerifyRecommendation(productId, 2, OK);
         postAndVerifyRecommendation(productId, 3, OK);
 
-        assertEquals(3, repository.findByProductId(productId).size());
+        assertEquals(3, (long) repository.findByProductId(productId).count().block());
 
         getAndVerifyRecommendation(productId, OK)
                 .jsonPath("$.length()").isEqualTo(3)
@@ -47,6 +54,103 @@ class RecommendationServiceApplicationTests extends MongoDbTestBase {
                 .jsonPath("$[2].recommendationId").isEqualTo(3);
     }
 
+    @Test
+    void getRecommendationsPageByPage() {
+        int productId = 1;
+        for (int id = 1; id <= 5; id++) {
+            postAndVerifyRecommendation(productId, id, OK);
+        }
+
+        String pageToken = getAndVerifyRecommendationPage(productId, 2, null, List.of(1, 2));
+        pageToken = getAndVerifyRecommendationPage(productId, 2, pageToken, List.of(3, 4));
+        assertNull(getAndVerifyRecommendationPage(productId, 2, pageToken, List.of(5)));
+
+        client.get()
+                .uri("/recommendation?productId=2&pageSize=2&pageToken=" + PageToken.encode(productId, 2))
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void getRecommendationSummariesAndTheFullRecommendation() {
+        int productId = 1;
+        postAndVerifyRecommendation(productId, 1, OK);
+        postAndVerifyRecommendation(productId, 2, OK);
+
+        getAndVerifyRecommendation("?productId=1&view=summary", OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].recommendationId").isEqualTo(2)
+                .jsonPath("$[1].rate").isEqualTo(2)
+                .jsonPath("$[1].version").isEqualTo(0)
+                .jsonPath("$[1].content").doesNotExist();
+
+        getAndVerifyRecommendation("?productId=1&pageSize=1&view=summary", OK)
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].author").isEqualTo("Author1")
+                .jsonPath("$[0].content").doesNotExist();
+
+        getAndVerifyRecommendation("?productId=1&recommendationId=2", OK)
+                .jsonPath("$.recommendationId").isEqualTo(2)
+                .jsonPath("$.content").isEqualTo("Content 2");
+
+        getAndVerifyRecommendation("?productId=1&recommendationId=3", NOT_FOUND)
+                .jsonPath("$.message").isEqualTo("No recommendation found for productId: 1, recommendationId: 3");
+
+        getAndVerifyRecommendation("?productId=1&view=compact", UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").isEqualTo("Invalid view: compact, expected full or summary");
+    }
+
+    @Test
+    void summaryDoesNotMatchTheETagOfTheFullList() {
+        postAndVerifyRecommendation(1, 1, OK);
+        String eTag = getAndVerifyRecommendation(1, OK).returnResult().getResponseHeaders().getETag();
+
+        client.get()
+                .uri("/recommendation?productId=1&view=summary")
+                .ifNoneMatch(eTag)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectBody()
+                .jsonPath("$[0].content").doesNotExist();
+    }
+
+    @Test
+    void streamRecommendationsByProductId() {
+        int productId = 1;
+
+        postAndVerifyRecommendation(productId, 2, OK);
+        postAndVerifyRecommendation(productId, 1, OK);
+        postAndVerifyRecommendation(productId, 3, OK);
+        postAndVerifyRecommendation(2, 1, OK);
+
+        List<Recommendation> recommendations = client.get()
+                .uri("/recommendation/stream?productId=" + productId)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .expectBodyList(Recommendation.class)
+                .returnResult().getResponseBody();
+
+        assertEquals(List.of(1, 2, 3), recommendations.stream().map(Recommendation::getRecommendationId).toList());
+    }
+
+    @Test
+    void getRecommendationsByProductIds() {
+        postAndVerifyRecommendation(1, 1, OK);
+        postAndVerifyRecommendation(1, 2, OK);
+        postAndVerifyRecommendation(2, 1, OK);
+
+        getAndVerifyRecommendation("?productIds=1,2,113", OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$['1'].length()").isEqualTo(2)
+                .jsonPath("$['1'][1].recommendationId").isEqualTo(2)
+                .jsonPath("$['2'].length()").isEqualTo(1)
+                .jsonPath("$['113']").doesNotExist();
+    }
+
     @Test
     void duplicateError() {
         int productId = 1;
@@ -55,12 +159,12 @@ class RecommendationServiceApplicationTests extends MongoDbTestBase {
         postAndVerifyRecommendation(productId, recommendationId, OK)
                 .jsonPath("$.productId").isEqualTo(productId)
                 .jsonPath("$.recommendationId").isEqualTo(recommendationId);
-        assertEquals(1, repository.count());
+        assertEquals(1, (long) repository.count().block());
 
         postAndVerifyRecommendation(productId, recommendationId, UNPROCESSABLE_ENTITY)
                 .jsonPath("$.path").isEqualTo("/recommendation")
                 .jsonPath("$.message").isEqualTo("Duplicate key, Product Id: 1, Recommendation Id:1");
-        assertEquals(1, repository.count());
+        assertEquals(1, (long) repository.count().block());
     }
 
     @Test
@@ -69,12 +173,12 @@ class RecommendationServiceApplicationTests extends MongoDbTestBase {
         int recommendationId = 1;
 
         postAndVerifyRecommendation(productId, recommendationId, OK);
-        assertEquals(1, repository.findByProductId(productId).size());
+        assertEquals(1, (long) repository.findByProductId(productId).count().block());
 
-        deleteAndVerifyRecommendation(productId, OK);
-        assertEquals(0, repository.findByProductId(productId).size());
+        deleteAndVerifyRecommendation(productId, OK).jsonPath("$").isEqualTo(1);
+        assertEquals(0, (long) repository.findByProductId(productId).count().block());
 
-        deleteAndVerifyRecommendation(productId, OK);
+        deleteAndVerifyRecommendation(productId, OK).jsonPath("$").isEqualTo(0);
     }
 
     @Test
@@ -106,6 +210,19 @@ class RecommendationServiceApplicationTests extends MongoDbTestBase {
                 .jsonPath("$.message").isEqualTo("Invalid productId: " + productIdInvalid);
     }
 
+    private String getAndVerifyRecommendationPage(int productId, int pageSize, String pageToken, List<Integer> expectedIds) {
+        EntityExchangeResult<List<Recommendation>> result = client.get()
+                .uri("/recommendation?productId=" + productId + "&pageSize=" + pageSize
+                        + (pageToken == null ? "" : "&pageToken=" + pageToken))
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectBodyList(Recommendation.class)
+                .returnResult();
+        assertEquals(expectedIds, result.getResponseBody().stream().map(Recommendation::getRecommendationId).toList());
+        return result.getResponseHeaders().getFirst(PageToken.NEXT_PAGE_TOKEN_HEADER);
+    }
+
     private WebTestClient.BodyContentSpec postAndVerifyRecommendation(int productId, int recommendationId,
             HttpStatus expectedStatus) {
         Recommendation recommendation = new Recommendation(productId, recommendationId, "Author" + recommendationId,
@@ -0,0 +1,103 @@
+package se.magnus.microservices.core.review;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs the blocking JPA and JDBC calls of the service off the event loop, on
+ * one thread per pooled connection, so a thread never waits for a connection
+ * and a slow query only holds up the requests queued behind it. A call returns
+ * its connection when it completes, long results are read a page per call, so
+ * a slow client holds neither a thread nor a connection. Calls beyond the queue
+ * capacity are rejected with 503 instead of piling up. The queue is monitored
+ * as the "jdbc" executor: executor.queued, executor.idle (the time spent
+ * queued), executor.active and executor.rejected.
+ */
+@Slf4j
+@Component
+public class JdbcScheduler implements DisposableBean {
+
+    private static final String NAME = "jdbc";
+
+    private final Scheduler scheduler;
+    private final Counter rejected;
+
+    public JdbcScheduler(MeterRegistry meterRegistry,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int threads,
+            @Value("${app.jdbc.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(NAME + "-"));
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, NAME);
+        this.scheduler = Schedulers.fromExecutorService(monitored, NAME);
+        this.rejected = Counter.builder("executor.rejected")
+                .description("Calls rejected because the queue was full")
+                .tag("name", NAME)
+                .register(meterRegistry);
+        log.info("JDBC calls run on {} threads with a queue of {}", threads, queueCapacity);
+    }
+
+    /**
+     * @return the result of the call, made on a JDBC thread when subscribed to
+     */
+    public <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call)
+                .subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, this::overloaded);
+    }
+
+    /**
+     * Reads a result a page at a time, each page in a call of its own that is queued
+     * when the subscriber has consumed the page before. The thread and connection are
+     * returned between the pages, however slowly the subscriber reads.
+     *
+     * @param pageSize the number of elements of a full page, a shorter page is the last one
+     * @param pageAfter reads the page after the given element, the first page for null
+     * @return the elements of the pages
+     */
+    public <T> Flux<T> pages(int pageSize, Function<T, List<T>> pageAfter) {
+        return pagesAfter(null, pageSize, pageAfter);
+    }
+
+    private <T> Flux<T> pagesAfter(T last, int pageSize, Function<T, List<T>> pageAfter) {
+        return call(() -> pageAfter.apply(last)).flatMapMany(page -> {
+            Flux<T> elements = Flux.fromIterable(page);
+            if (page.size() < pageSize) {
+                return elements;
+            }
+            return elements.concatWith(Flux.defer(() -> pagesAfter(page.get(page.size() - 1), pageSize, pageAfter)));
+        });
+    }
+
+    private ResponseStatusException overloaded(RejectedExecutionException e) {
+        rejected.increment();
+        return new ResponseStatusException(SERVICE_UNAVAILABLE, "Too many queued database calls", e);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
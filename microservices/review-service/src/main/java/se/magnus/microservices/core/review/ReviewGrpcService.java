@@ -0,0 +1,87 @@
+package se.magnus.microservices.core.review;
+
+import static se.magnus.microservices.util.grpc.GrpcErrors.respondAsync;
+
+import org.springframework.stereotype.Component;
+
+import com.google.protobuf.Empty;
+
+import io.grpc.stub.StreamObserver;
+import se.magnus.microservices.api.core.review.grpc.ReviewList;
+import se.magnus.microservices.api.core.review.grpc.ReviewMessage;
+import se.magnus.microservices.api.core.review.grpc.ReviewMessages;
+import se.magnus.microservices.api.core.review.grpc.ReviewPage;
+import se.magnus.microservices.api.core.review.grpc.ReviewPageRequest;
+import se.magnus.microservices.api.core.review.grpc.ReviewProductIdRequest;
+import se.magnus.microservices.api.core.review.grpc.ReviewProductIdsRequest;
+import se.magnus.microservices.api.core.review.grpc.ReviewServiceGrpc;
+import se.magnus.microservices.api.core.review.grpc.ReviewsByProductId;
+import se.magnus.microservices.util.http.ListView;
+import se.magnus.microservices.util.http.PageToken;
+
+/**
+ * gRPC endpoint of the review service, delegates to the REST controller so
+ * both transports share validation and error handling.
+ */
+@Component
+public class ReviewGrpcService extends ReviewServiceGrpc.ReviewServiceImplBase {
+
+    private final ReviewService reviewService;
+
+    public ReviewGrpcService(ReviewService reviewService) {
+        this.reviewService = reviewService;
+    }
+
+    @Override
+    public void getReviews(ReviewProductIdRequest request, StreamObserver<ReviewList> responseObserver) {
+        respondAsync(responseObserver,
+                () -> reviewService.getReviews(request.getProductId()).map(ReviewMessages::toMessage));
+    }
+
+    @Override
+    public void getReviewPage(ReviewPageRequest request, StreamObserver<ReviewPage> responseObserver) {
+        respondAsync(responseObserver, () -> reviewService
+                .getReviewPage(request.getProductId(), request.getPageSize(),
+                        request.hasPageToken() ? request.getPageToken() : null,
+                        request.getOrder().isEmpty() ? "asc" : request.getOrder(),
+                        request.getView().isEmpty() ? ListView.FULL : request.getView())
+                .map(page -> {
+                    ReviewPage.Builder builder = ReviewPage.newBuilder()
+                            .addAllReviews(ReviewMessages.toMessage(page.getBody()).getReviewsList());
+                    String nextPageToken = page.getHeaders().getFirst(PageToken.NEXT_PAGE_TOKEN_HEADER);
+                    if (nextPageToken != null) {
+                        builder.setNextPageToken(nextPageToken);
+                    }
+                    String totalCount = page.getHeaders().getFirst(PageToken.TOTAL_COUNT_HEADER);
+                    if (totalCount != null) {
+                        builder.setTotalCount(Integer.parseInt(totalCount));
+                    }
+                    return builder.build();
+                }));
+    }
+
+    @Override
+    public void getReviewsByProductIds(ReviewProductIdsRequest request,
+            StreamObserver<ReviewsByProductId> responseObserver) {
+        respondAsync(responseObserver, () -> reviewService.getReviewsByProductIds(request.getProductIdsList())
+                .map(ReviewMessages::toMessage));
+    }
+
+    @Override
+    public void createReview(ReviewMessage request, StreamObserver<ReviewMessage> responseObserver) {
+        respondAsync(responseObserver,
+                () -> reviewService.createReview(ReviewMessages.fromMessage(request)).map(ReviewMessages::toMessage));
+    }
+
+    @Override
+    public void createReviews(ReviewList request, StreamObserver<ReviewList> responseObserver) {
+        respondAsync(responseObserver,
+                () -> reviewService.createReviews(ReviewMessages.fromMessage(request)).map(ReviewMessages::toMessage));
+    }
+
+    @Override
+    public void deleteReviews(ReviewProductIdRequest request, StreamObserver<Empty> responseObserver) {
+        respondAsync(responseObserver,
+                () -> reviewService.deleteReviews(request.getProductId()).thenReturn(Empty.getDefaultInstance()));
+    }
+}
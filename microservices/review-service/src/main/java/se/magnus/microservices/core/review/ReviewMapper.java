@@ -20,4 +20,10 @@ public interface ReviewMapper {
     List<Review> entityToApi(List<ReviewEntity> entities);
 
     List<ReviewEntity> apiToEntity(List<Review> api);
+
+    @Mapping(target = "content", ignore = true)
+    @Mapping(target = "serviceAddress", ignore = true)
+    Review summaryToApi(ReviewSummary summary);
+
+    List<Review> summaryToApi(List<ReviewSummary> summaries);
 }
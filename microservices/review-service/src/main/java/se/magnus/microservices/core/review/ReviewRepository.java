@@ -1,13 +1,58 @@
 package se.magnus.microservices.core.review;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 
-public interface ReviewRepository extends CrudRepository<ReviewEntity, Integer> {
+public interface ReviewRepository extends ListCrudRepository<ReviewEntity, Integer> {
 
     @Transactional(readOnly = true)
     List<ReviewEntity> findByProductId(int productId);
+
+    @Transactional(readOnly = true)
+    Optional<ReviewEntity> findByProductIdAndReviewId(int productId, int reviewId);
+
+    /**
+     * Reads ReviewEntity or, with ReviewSummary as type, a DTO projection that selects only its columns, so the
+     * content is not read. The same goes for the list methods below.
+     */
+    @Transactional(readOnly = true)
+    <T> List<T> findByProductIdOrderByReviewIdAsc(int productId, Limit limit, Class<T> type);
+
+    @Transactional(readOnly = true)
+    <T> List<T> findByProductIdOrderByReviewIdDesc(int productId, Limit limit, Class<T> type);
+
+    @Transactional(readOnly = true)
+    <T> List<T> findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(int productId, int reviewId, Limit limit,
+            Class<T> type);
+
+    @Transactional(readOnly = true)
+    <T> List<T> findByProductIdAndReviewIdLessThanOrderByReviewIdDesc(int productId, int reviewId, Limit limit,
+            Class<T> type);
+
+    @Transactional(readOnly = true)
+    long countByProductId(int productId);
+
+    @Transactional(readOnly = true)
+    List<ReviewEntity> findByProductIdInOrderByProductIdAscReviewIdAsc(Collection<Integer> productIds, Limit limit);
+
+    /**
+     * Deletes the reviews of a product in one bulk DELETE statement. A derived deleteBy method would load the
+     * entities and remove them one at a time; this skips the persistence context, so reviews of the product that
+     * are already loaded in it are not detached.
+     *
+     * @return the number of deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ReviewEntity r WHERE r.productId = :productId")
+    int deleteByProductId(@Param("productId") int productId);
 }
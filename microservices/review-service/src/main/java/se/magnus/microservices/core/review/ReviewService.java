@@ -1,19 +1,34 @@
 package se.magnus.microservices.core.review;
 
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import se.magnus.microservices.api.core.review.Review;
 import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+import se.magnus.microservices.util.http.ETags;
+import se.magnus.microservices.util.http.ListView;
+import se.magnus.microservices.util.http.PageToken;
 import se.magnus.microservices.util.http.ServiceUtil;
 
 @Slf4j
@@ -23,11 +38,25 @@ public class ReviewService {
     private final ServiceUtil serviceUtil;
     private final ReviewRepository repository;
     private final ReviewMapper mapper;
+    private final ReviewStreamRepository streamRepository;
+    private final JdbcScheduler jdbcScheduler;
+    private final int maxIdsPerRequest;
+    private final int maxResultsPerRequest;
+    private final int maxPageSize;
 
-    public ReviewService(ServiceUtil serviceUtil, ReviewRepository repository, ReviewMapper mapper) {
+    public ReviewService(ServiceUtil serviceUtil, ReviewRepository repository, ReviewMapper mapper,
+            ReviewStreamRepository streamRepository, JdbcScheduler jdbcScheduler,
+            @Value("${app.max-ids-per-request:200}") int maxIdsPerRequest,
+            @Value("${app.max-results-per-request:5000}") int maxResultsPerRequest,
+            @Value("${app.max-page-size:100}") int maxPageSize) {
         this.serviceUtil = serviceUtil;
         this.repository = repository;
         this.mapper = mapper;
+        this.streamRepository = streamRepository;
+        this.jdbcScheduler = jdbcScheduler;
+        this.maxIdsPerRequest = maxIdsPerRequest;
+        this.maxResultsPerRequest = maxResultsPerRequest;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
@@ -40,46 +69,284 @@ public class ReviewService {
      * @param body A JSON representation of the new review
      * @return A JSON representation of the newly created review
      */
-    @PostMapping(value = "/review", consumes = "application/json", produces = "application/json")
-    public Review createReview(@RequestBody Review body) {
-        try {
-            ReviewEntity entity = mapper.apiToEntity(body);
-            ReviewEntity newEntity = repository.save(entity);
-            log.debug("createReview: created a review entity: {}/{}", body.getProductId(), body.getReviewId());
-            return mapper.entityToApi(newEntity);
-        } catch (DataIntegrityViolationException e) {
-            throw new InvalidInputException(
-                    "Duplicate key, Product Id: " + body.getProductId() + ", Review Id:" + body.getReviewId());
+    @PostMapping(value = "/review", consumes = { "application/json", "application/x-jackson-smile" }, produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<Review> createReview(@RequestBody Review body) {
+        ReviewEntity entity = mapper.apiToEntity(body);
+        return jdbcScheduler.call(() -> repository.save(entity))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new InvalidInputException(
+                        "Duplicate key, Product Id: " + body.getProductId() + ", Review Id:" + body.getReviewId()))
+                .map(newEntity -> {
+                    log.debug("createReview: created a review entity: {}/{}", body.getProductId(), body.getReviewId());
+                    return mapper.entityToApi(newEntity);
+                });
+    }
+
+    /**
+     * Sample usage, see below.
+     *
+     * curl -X POST $HOST:$PORT/review/batch \
+     *   -H "Content-Type: application/json" --data \
+     *   '[{"productId":123,"reviewId":1,"author":"me","subject":"yada","content":"yada"},
+     *     {"productId":123,"reviewId":2,"author":"me","subject":"yada","content":"yada"}]'
+     *
+     * All or none of the reviews are created, in one transaction with batched inserts.
+     *
+     * @param body A JSON representation of the new reviews
+     * @return A JSON representation of the newly created reviews, in the posted order
+     */
+    @PostMapping(value = "/review/batch", consumes = { "application/json", "application/x-jackson-smile" }, produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<List<Review>> createReviews(@RequestBody List<Review> body) {
+        if (body.size() > maxResultsPerRequest) {
+            throw new InvalidInputException("Too many reviews: " + body.size() + ", max: " + maxResultsPerRequest);
         }
+
+        List<ReviewEntity> entities = mapper.apiToEntity(body);
+        return jdbcScheduler.call(() -> repository.saveAll(entities))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new InvalidInputException(
+                        "Duplicate key in a batch of " + body.size() + " reviews, none of them was created"))
+                .map(newEntities -> {
+                    log.debug("createReviews: created {} review entities", newEntities.size());
+                    return mapper.entityToApi(newEntities);
+                });
     }
 
     /**
-     * Sample usage: "curl $HOST:$PORT/review?productId=1".
+     * Sample usage: "curl -i $HOST:$PORT/review?productId=1&view=summary".
+     *
+     * The response carries an ETag of the ids and stored versions of the reviews, a
+     * request with a matching If-None-Match header is answered with 304 Not Modified.
      *
      * @param productId Id of the product
-     * @return the reviews of the product
+     * @param view full or summary, summary leaves out the content of the reviews, full if left out
+     * @param exchange The current exchange, to evaluate If-None-Match on
+     * @return the reviews of the product, ordered by reviewId
      */
-    @GetMapping(value = "/review", produces = "application/json")
-    public List<Review> getReviews(@RequestParam int productId) {
+    @GetMapping(value = "/review", produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<ResponseEntity<List<Review>>> getReviews(@RequestParam int productId,
+            @RequestParam(defaultValue = ListView.FULL) String view, ServerWebExchange exchange) {
+        if (ListView.isSummary(view)) {
+            return findReviews(productId, ReviewSummary.class).map(summaries -> respond(productId, exchange,
+                    ListView.summaryETag(ETags.of(summaries, ReviewSummary::id, ReviewSummary::version)),
+                    () -> mapper.summaryToApi(summaries)));
+        }
+        return findReviews(productId, ReviewEntity.class).map(entities -> respond(productId, exchange,
+                ETags.of(entities, ReviewEntity::getId, ReviewEntity::getVersion),
+                () -> mapper.entityToApi(entities)));
+    }
+
+    /**
+     * @param productId Id of the product
+     * @return the reviews of the product, ordered by reviewId
+     */
+    public Mono<List<Review>> getReviews(int productId) {
+        return findReviews(productId, ReviewEntity.class)
+                .map(entities -> withServiceAddress(mapper.entityToApi(entities)));
+    }
+
+    private <T> Mono<List<T>> findReviews(int productId, Class<T> type) {
         if (productId < 1) {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
-        List<ReviewEntity> entities = repository.findByProductId(productId);
-        List<Review> list = mapper.entityToApi(entities);
+
+        // Read one more than allowed to detect a response that would exceed the limit
+        return jdbcScheduler.call(() -> repository.findByProductIdOrderByReviewIdAsc(productId,
+                Limit.of(maxResultsPerRequest + 1), type))
+                .doOnNext(reviews -> {
+                    if (reviews.size() > maxResultsPerRequest) {
+                        throw new InvalidInputException("Too many reviews for productId: " + productId + ", max: "
+                                + maxResultsPerRequest + ", use pageSize and pageToken to page through them");
+                    }
+                });
+    }
+
+    private ResponseEntity<List<Review>> respond(int productId, ServerWebExchange exchange, String eTag,
+            Supplier<List<Review>> reviews) {
+        if (exchange.checkNotModified(eTag)) {
+            log.debug("getReviews: not modified, productId: {}", productId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(withServiceAddress(reviews.get()));
+    }
+
+    private List<Review> withServiceAddress(List<Review> list) {
         list.forEach(it -> it.setServiceAddress(serviceUtil.getServiceAddress()));
         log.debug("getReviews: response size: {}", list.size());
         return list;
     }
 
+    /**
+     * Sample usage: "curl -i $HOST:$PORT/review?productId=1&reviewId=1".
+     *
+     * The full review, content included, of an item of a summary list. The response carries
+     * an ETag of the stored version of the review, a request with a matching If-None-Match
+     * header is answered with 304 Not Modified.
+     *
+     * @param productId Id of the product
+     * @param reviewId Id of the review
+     * @param exchange The current exchange, to evaluate If-None-Match on
+     * @return the review, if found, else a NotFoundException
+     */
+    @GetMapping(value = "/review", params = "reviewId", produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<ResponseEntity<Review>> getReview(@RequestParam int productId, @RequestParam int reviewId,
+            ServerWebExchange exchange) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        if (reviewId < 1) {
+            throw new InvalidInputException("Invalid reviewId: " + reviewId);
+        }
+
+        return jdbcScheduler.call(() -> repository.findByProductIdAndReviewId(productId, reviewId).orElse(null))
+                .switchIfEmpty(Mono.error(() -> new NotFoundException(
+                        "No review found for productId: " + productId + ", reviewId: " + reviewId)))
+                .map(entity -> {
+                    String eTag = ETags.of(entity.getId(), entity.getVersion());
+                    if (exchange.checkNotModified(eTag)) {
+                        log.debug("getReview: not modified, productId: {}, reviewId: {}", productId, reviewId);
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                    }
+                    Review review = mapper.entityToApi(entity);
+                    review.setServiceAddress(serviceUtil.getServiceAddress());
+                    return ResponseEntity.ok().eTag(eTag).body(review);
+                });
+    }
+
+    /**
+     * Sample usage: "curl -i $HOST:$PORT/review?productId=1&pageSize=20".
+     *
+     * The next page is requested with the pageToken returned in the X-Next-Page-Token
+     * header, the header is left out on the last page. The first page also carries the
+     * number of reviews of the product in the X-Total-Count header.
+     *
+     * @param productId Id of the product
+     * @param pageSize Maximum number of reviews in the page
+     * @param pageToken Token of the page, from the previous response, none for the first page
+     * @param order asc or desc, the order of the reviewIds, asc if left out
+     * @param view full or summary, summary leaves out the content of the reviews, full if left out
+     * @return a page of the reviews of the product, ordered by reviewId
+     */
+    @GetMapping(value = "/review", params = "pageSize", produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<ResponseEntity<List<Review>>> getReviewPage(@RequestParam int productId, @RequestParam int pageSize,
+            @RequestParam(required = false) String pageToken, @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(defaultValue = ListView.FULL) String view) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidInputException("Invalid pageSize: " + pageSize + ", max: " + maxPageSize);
+        }
+
+        boolean descending = PageToken.isDescending(order);
+        boolean summary = ListView.isSummary(view);
+
+        // Read one more than the page to find out if there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+        Integer lastReviewId = pageToken == null ? null : PageToken.decode(pageToken, productId);
+        String serviceAddress = serviceUtil.getServiceAddress();
+        return jdbcScheduler.call(() -> {
+            List<Review> list = summary
+                    ? mapper.summaryToApi(findPage(productId, lastReviewId, descending, limit, ReviewSummary.class))
+                    : mapper.entityToApi(findPage(productId, lastReviewId, descending, limit, ReviewEntity.class));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (lastReviewId == null) {
+                response.header(PageToken.TOTAL_COUNT_HEADER, Long.toString(repository.countByProductId(productId)));
+            }
+
+            if (list.size() > pageSize) {
+                list = list.subList(0, pageSize);
+                response.header(PageToken.NEXT_PAGE_TOKEN_HEADER,
+                        PageToken.encode(productId, list.get(pageSize - 1).getReviewId()));
+            }
+
+            list.forEach(it -> it.setServiceAddress(serviceAddress));
+            log.debug("getReviewPage: response size: {}", list.size());
+            return response.body(list);
+        });
+    }
+
+    private <T> List<T> findPage(int productId, Integer lastReviewId, boolean descending, Limit limit,
+            Class<T> type) {
+        if (lastReviewId == null) {
+            return descending
+                    ? repository.findByProductIdOrderByReviewIdDesc(productId, limit, type)
+                    : repository.findByProductIdOrderByReviewIdAsc(productId, limit, type);
+        }
+        return descending
+                ? repository.findByProductIdAndReviewIdLessThanOrderByReviewIdDesc(productId, lastReviewId, limit, type)
+                : repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(productId, lastReviewId, limit,
+                        type);
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/review/stream?productId=1".
+     *
+     * Streams the reviews of the product as newline delimited JSON, read from the
+     * database a page at a time as the client consumes them.
+     *
+     * @param productId Id of the product
+     * @return the reviews of the product, ordered by reviewId
+     */
+    @GetMapping(value = "/review/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Review> streamReviews(@RequestParam int productId) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        String serviceAddress = serviceUtil.getServiceAddress();
+        return jdbcScheduler.<Review>pages(streamRepository.getPageSize(),
+                last -> last == null ? streamRepository.findFirstPageByProductId(productId)
+                        : streamRepository.findPageByProductId(productId, last.getReviewId()))
+                .doOnNext(review -> review.setServiceAddress(serviceAddress));
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/review?productIds=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the reviews grouped by productId, products without reviews are left out
+     */
+    @GetMapping(value = "/review", params = "productIds", produces = { "application/json", "application/x-jackson-smile" })
+    public Mono<Map<Integer, List<Review>>> getReviewsByProductIds(@RequestParam("productIds") List<Integer> productIds) {
+        if (productIds.size() > maxIdsPerRequest) {
+            throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + maxIdsPerRequest);
+        }
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+
+        String serviceAddress = serviceUtil.getServiceAddress();
+        // Read one more than allowed to detect a response that would exceed the limit
+        return jdbcScheduler.call(() -> repository.findByProductIdInOrderByProductIdAscReviewIdAsc(productIds,
+                Limit.of(maxResultsPerRequest + 1)))
+                .map(entities -> {
+                    if (entities.size() > maxResultsPerRequest) {
+                        throw new InvalidInputException(
+                                "Too many reviews for the requested productIds, max: " + maxResultsPerRequest);
+                    }
+
+                    Map<Integer, List<Review>> response = entities.stream()
+                            .map(entity -> {
+                                Review review = mapper.entityToApi(entity);
+                                review.setServiceAddress(serviceAddress);
+                                return review;
+                            })
+                            .collect(Collectors.groupingBy(Review::getProductId, LinkedHashMap::new,
+                                    Collectors.toList()));
+                    log.debug("getReviewsByProductIds: response size: {}", entities.size());
+                    return response;
+                });
+    }
+
     /**
      * Sample usage: "curl -X DELETE $HOST:$PORT/review?productId=1".
      *
      * @param productId Id of the product
+     * @return the number of deleted reviews, 0 if there was none
      */
     @DeleteMapping(value = "/review")
-    public void deleteReviews(@RequestParam(value = "productId", required = true) int productId) {
+    public Mono<Long> deleteReviews(@RequestParam(value = "productId", required = true) int productId) {
         log.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
-        repository.deleteAll(repository.findByProductId(productId));
+        return jdbcScheduler.call(() -> (long) repository.deleteByProductId(productId))
+                .doOnNext(deleted -> log.debug("deleteReviews: deleted {} entities", deleted));
     }
 
 }
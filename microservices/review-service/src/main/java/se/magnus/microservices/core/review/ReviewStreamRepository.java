@@ -0,0 +1,68 @@
+package se.magnus.microservices.core.review;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import se.magnus.microservices.api.core.review.Review;
+
+/**
+ * Reads the reviews of a streamed response straight from JDBC, without loading the
+ * entities into the persistence context. They are read a page at a time, keyset
+ * paginated on the (productId, reviewId) index, so no connection is held between
+ * the pages while the client reads.
+ */
+@Repository
+public class ReviewStreamRepository {
+
+    private static final String SELECT_FIRST_PAGE_BY_PRODUCT_ID =
+            "SELECT product_id, review_id, author, subject, content, version FROM reviews"
+                    + " WHERE product_id = ? ORDER BY review_id LIMIT ?";
+
+    private static final String SELECT_PAGE_BY_PRODUCT_ID =
+            "SELECT product_id, review_id, author, subject, content, version FROM reviews"
+                    + " WHERE product_id = ? AND review_id > ? ORDER BY review_id LIMIT ?";
+
+    private static final RowMapper<Review> REVIEW_MAPPER = (rs, rowNum) -> {
+        Review review = new Review(
+                rs.getInt("product_id"),
+                rs.getInt("review_id"),
+                rs.getString("author"),
+                rs.getString("subject"),
+                rs.getString("content"),
+                null);
+        review.setVersion(rs.getInt("version"));
+        return review;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int pageSize;
+
+    public ReviewStreamRepository(DataSource dataSource, @Value("${app.stream-page-size:100}") int pageSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.pageSize = pageSize;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return up to page size reviews of the product, from its lowest reviewId
+     */
+    public List<Review> findFirstPageByProductId(int productId) {
+        return jdbcTemplate.query(SELECT_FIRST_PAGE_BY_PRODUCT_ID, REVIEW_MAPPER, productId, pageSize);
+    }
+
+    /**
+     * @return up to page size reviews of the product after the given reviewId
+     */
+    public List<Review> findPageByProductId(int productId, int afterReviewId) {
+        return jdbcTemplate.query(SELECT_PAGE_BY_PRODUCT_ID, REVIEW_MAPPER, productId, afterReviewId, pageSize);
+    }
+}
@@ -0,0 +1,7 @@
+package se.magnus.microservices.core.review;
+
+/**
+ * A review without its content, read with a DTO projection that selects only these columns.
+ */
+public record ReviewSummary(int id, int version, int productId, int reviewId, String author, String subject) {
+}
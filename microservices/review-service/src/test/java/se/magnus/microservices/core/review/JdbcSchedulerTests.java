@@ -0,0 +1,80 @@
+package se.magnus.microservices.core.review;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class JdbcSchedulerTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JdbcScheduler jdbcScheduler = new JdbcScheduler(meterRegistry, 1, 1);
+
+    @AfterEach
+    void dispose() {
+        jdbcScheduler.destroy();
+    }
+
+    @Test
+    void callsRunOnJdbcThreads() {
+        String thread = jdbcScheduler.call(() -> Thread.currentThread().getName()).block();
+        assertTrue(thread.startsWith("jdbc-"), thread);
+    }
+
+    @Test
+    void callsBeyondTheQueueAreRejected() {
+        CountDownLatch release = new CountDownLatch(1);
+        Mono<Boolean> blockedCall = jdbcScheduler.call(() -> release.await(10, SECONDS));
+        try {
+            // The first call takes the only thread, the second one the only place in the queue
+            blockedCall.subscribe();
+            blockedCall.subscribe();
+            assertEquals(1, meterRegistry.get("executor.queued").tag("name", "jdbc").gauge().value());
+
+            ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                    () -> jdbcScheduler.call(() -> true).block());
+            assertEquals(503, rejected.getStatusCode().value());
+            assertEquals(1, meterRegistry.get("executor.rejected").tag("name", "jdbc").counter().count());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void pagesAreReadAsTheSubscriberConsumesThem() {
+        List<Integer> pagesAfter = new CopyOnWriteArrayList<>();
+        Flux<Integer> elements = jdbcScheduler.pages(2, (Integer last) -> {
+            pagesAfter.add(last);
+            return pageAfter(last, 5);
+        });
+
+        StepVerifier.create(elements, 1)
+                .expectNext(1)
+                .then(() -> assertEquals(Collections.singletonList(null), pagesAfter))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext(2, 3, 4, 5)
+                .verifyComplete();
+        assertEquals(Arrays.asList(null, 2, 4), pagesAfter);
+    }
+
+    private static List<Integer> pageAfter(Integer last, int count) {
+        int first = last == null ? 1 : last + 1;
+        return IntStream.rangeClosed(first, Math.min(count, first + 1)).boxed().toList();
+    }
+}
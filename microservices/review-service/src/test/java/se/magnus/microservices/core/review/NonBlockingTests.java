@@ -0,0 +1,112 @@
+package se.magnus.microservices.core.review;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static se.magnus.microservices.util.test.LoadDriver.exchange;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.util.test.BlockingCalls;
+import se.magnus.microservices.util.test.LoadDriver;
+
+/**
+ * Runs the review API at high concurrency against H2 with BlockHound installed, which reports
+ * every blocking call made on an event loop thread. The JDBC connection pool is kept smaller than
+ * the concurrency, so requests queue for the JDBC threads.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "app.grpc.port=0",
+        "spring.datasource.url=jdbc:h2:mem:review-db;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=4" })
+class NonBlockingTests {
+
+    private static final int PRODUCTS = 100;
+    private static final int REVIEWS_PER_PRODUCT = 5;
+    private static final int REQUESTS = 10_000;
+    private static final int CONCURRENCY = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ReviewRepository repository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private LoadDriver driver;
+
+    @BeforeAll
+    static void installBlockHound() {
+        // H2 runs in memory without socket I/O, its statements would go unnoticed
+        BlockingCalls.install(builder -> builder
+                .markAsBlocking("org.h2.jdbc.JdbcPreparedStatement", "executeQuery", "()Ljava/sql/ResultSet;")
+                .markAsBlocking("org.h2.jdbc.JdbcPreparedStatement", "executeUpdate", "()I")
+                .markAsBlocking("org.h2.jdbc.JdbcPreparedStatement", "execute", "()Z"));
+    }
+
+    @BeforeEach
+    void setup() {
+        repository.deleteAll();
+        BlockingCalls.clear();
+        driver = new LoadDriver(port, CONCURRENCY);
+    }
+
+    @AfterEach
+    void closeDriver() {
+        driver.close();
+    }
+
+    @Test
+    void blockingCallIsDetected() {
+        assertTrue(BlockingCalls.detectsBlockingCall());
+    }
+
+    @Test
+    void concurrentRequestsDoNotBlock() {
+        Map<HttpStatus, Long> created = driver.run(Flux.range(0, PRODUCTS * REVIEWS_PER_PRODUCT),
+                i -> postReview(i / REVIEWS_PER_PRODUCT + 1, i % REVIEWS_PER_PRODUCT + 1));
+        assertEquals(Map.of(HttpStatus.OK, (long) PRODUCTS * REVIEWS_PER_PRODUCT), created);
+
+        Map<HttpStatus, Long> statuses = driver.run(Flux.range(0, REQUESTS), i -> switch (i % 10) {
+            // A duplicate create fails in the database and is mapped to 422
+            case 0 -> postReview(i % PRODUCTS + 1, 1);
+            case 1 -> exchange(driver.client().get().uri("/review?productIds={a},{b}", i % PRODUCTS + 1,
+                    (i + 1) % PRODUCTS + 1));
+            case 2 -> exchange(driver.client().get().uri("/review?productId={productId}&pageSize=2",
+                    i % PRODUCTS + 1));
+            case 3 -> exchange(driver.client().get().uri("/review/stream?productId={productId}", i % PRODUCTS + 1)
+                    .accept(MediaType.APPLICATION_NDJSON));
+            default -> exchange(driver.client().get().uri("/review?productId={productId}", i % PRODUCTS + 1));
+        });
+
+        assertEquals(Map.of(
+                HttpStatus.OK, REQUESTS * 9L / 10,
+                HttpStatus.UNPROCESSABLE_ENTITY, REQUESTS / 10L), statuses);
+        assertEquals(List.of(), BlockingCalls.get());
+        assertTrue(meterRegistry.get("executor.completed").tag("name", "jdbc").functionCounter().count() >= REQUESTS);
+    }
+
+    private Mono<HttpStatus> postReview(int productId, int reviewId) {
+        return exchange(driver.client().post().uri("/review").bodyValue(new Review(productId, reviewId,
+                "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA")));
+    }
+}
@@ -3,9 +3,15 @@ package se.magnus.microservices.core.review;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +19,13 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManagerFactory;
+
 @DataJpaTest
 @Transactional(propagation = Propagation.NOT_SUPPORTED)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -24,6 +34,12 @@ public class PersistenceTests extends MysqlTestBase {
     @Autowired
     private ReviewRepository repository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
     private ReviewEntity savedEntity;
 
     @BeforeEach
@@ -47,6 +63,37 @@ public class PersistenceTests extends MysqlTestBase {
         assertEquals(2, repository.count());
     }
 
+    @Test
+    void createInBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ReviewEntity> entities = IntStream.rangeClosed(1, 200)
+                .mapToObj(reviewId -> new ReviewEntity(2, reviewId, "a", "s", "c"))
+                .toList();
+        repository.saveAll(entities);
+
+        assertEquals(200, statistics.getEntityInsertCount());
+        assertEquals(200, repository.findByProductId(2).size());
+        // Ids come from the sequence 50 at a time and inserts are sent 50 at a time, instead of two statements per review
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue("Statements: " + statements, statements <= 20);
+    }
+
+    @Test
+    void idsAreAllocatedInBlocksOfFifty() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long before = jdbcTemplate.queryForObject("SELECT next_val FROM ReviewEntity_SEQ", Long.class);
+
+        repository.saveAll(IntStream.rangeClosed(1, 120)
+                .mapToObj(reviewId -> new ReviewEntity(3, reviewId, "a", "s", "c"))
+                .toList());
+
+        // The table emulating the sequence on MySQL moves a whole block per round trip
+        long after = jdbcTemplate.queryForObject("SELECT next_val FROM ReviewEntity_SEQ", Long.class);
+        assertTrue("Advanced by: " + (after - before), after > before && (after - before) % 50 == 0);
+    }
+
     @Test
     void update() {
         savedEntity.setAuthor("a2");
@@ -63,6 +110,26 @@ public class PersistenceTests extends MysqlTestBase {
         assertFalse(repository.existsById(savedEntity.getId()));
     }
 
+    @Test
+    void deleteByProductId() {
+        repository.save(new ReviewEntity(1, 2, "a", "s", "c"));
+        repository.save(new ReviewEntity(2, 1, "a", "s", "c"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals(2, repository.deleteByProductId(1));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, repository.count());
+        assertEquals(0, repository.deleteByProductId(1));
+    }
+
+    @Test
+    void getSummariesByProductId() {
+        List<ReviewSummary> summaries = repository.findByProductIdOrderByReviewIdAsc(savedEntity.getProductId(),
+                Limit.of(10), ReviewSummary.class);
+        assertEquals(List.of(new ReviewSummary(savedEntity.getId(), 0, 1, 1, "a", "s")), summaries);
+    }
+
     @Test
     void getByProductId() {
         List<ReviewEntity> reviews = repository.findByProductId(savedEntity.getProductId());
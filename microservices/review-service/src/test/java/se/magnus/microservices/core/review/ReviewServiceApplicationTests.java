@@ -1,31 +1,56 @@
 package se.magnus.microservices.core.review;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import com.zaxxer.hikari.HikariDataSource;
+
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Mono;
 import se.magnus.microservices.api.core.review.Review;
+import se.magnus.microservices.util.http.PageToken;
 
-@SpringBootTest(webEnvironment = RANDOM_PORT)
+// Streams of more than two reviews are read in several pages
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = { "app.grpc.port=0", "app.stream-page-size=2" })
 class ReviewServiceApplicationTests extends MysqlTestBase {
 
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private WebTestClient client;
 
     @Autowired
     private ReviewRepository repository;
 
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
     @BeforeEach
     void setupDb() {
         repository.deleteAll();
@@ -49,6 +74,174 @@ class ReviewServiceApplicationTests extends MysqlTestBase {
                 .jsonPath("$[2].reviewId").isEqualTo(3);
     }
 
+    @Test
+    void getReviewsPageByPage() {
+        int productId = 1;
+        for (int id = 1; id <= 5; id++) {
+            postAndVerifyReview(productId, id, OK);
+        }
+
+        String pageToken = getAndVerifyReviewPage(productId, 2, null, List.of(1, 2));
+        pageToken = getAndVerifyReviewPage(productId, 2, pageToken, List.of(3, 4));
+        assertNull(getAndVerifyReviewPage(productId, 2, pageToken, List.of(5)));
+
+        client.get()
+                .uri("/review?productId=2&pageSize=2&pageToken=" + PageToken.encode(productId, 2))
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void getReviewSummariesAndTheFullReview() {
+        int productId = 1;
+        postAndVerifyReview(productId, 1, OK);
+        postAndVerifyReview(productId, 2, OK);
+
+        getAndVerifyReview("?productId=1&view=summary", OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].reviewId").isEqualTo(2)
+                .jsonPath("$[1].subject").isEqualTo("Subject 2")
+                .jsonPath("$[1].version").isEqualTo(0)
+                .jsonPath("$[1].content").doesNotExist();
+
+        getAndVerifyReview("?productId=1&pageSize=1&view=summary", OK)
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].author").isEqualTo("Author 1")
+                .jsonPath("$[0].content").doesNotExist();
+
+        getAndVerifyReview("?productId=1&reviewId=2", OK)
+                .jsonPath("$.reviewId").isEqualTo(2)
+                .jsonPath("$.content").isEqualTo("Content 2");
+
+        getAndVerifyReview("?productId=1&reviewId=3", NOT_FOUND)
+                .jsonPath("$.message").isEqualTo("No review found for productId: 1, reviewId: 3");
+
+        getAndVerifyReview("?productId=1&view=compact", UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").isEqualTo("Invalid view: compact, expected full or summary");
+    }
+
+    @Test
+    void summaryDoesNotMatchTheETagOfTheFullList() {
+        postAndVerifyReview(1, 1, OK);
+        String eTag = getAndVerifyReview(1, OK).returnResult().getResponseHeaders().getETag();
+
+        client.get()
+                .uri("/review?productId=1&view=summary")
+                .ifNoneMatch(eTag)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectBody()
+                .jsonPath("$[0].content").doesNotExist();
+    }
+
+    @Test
+    void streamReviewsByProductId() {
+        int productId = 1;
+
+        postAndVerifyReview(productId, 2, OK);
+        postAndVerifyReview(productId, 1, OK);
+        postAndVerifyReview(productId, 3, OK);
+        postAndVerifyReview(productId, 0, OK);
+        postAndVerifyReview(2, 1, OK);
+
+        List<Review> reviews = client.get()
+                .uri("/review/stream?productId=" + productId)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .expectBodyList(Review.class)
+                .returnResult().getResponseBody();
+
+        assertEquals(List.of(0, 1, 2, 3), reviews.stream().map(Review::getReviewId).toList());
+    }
+
+    @Test
+    void slowStreamConsumersHoldNoConnections() throws InterruptedException {
+        int productId = 1;
+        for (int id = 1; id <= 5; id++) {
+            postAndVerifyReview(productId, id, OK);
+        }
+
+        // More streams than pooled connections, each reads one review and then stops reading
+        int streams = dataSource.getMaximumPoolSize() * 2;
+        CountDownLatch firstReviews = new CountDownLatch(streams);
+        List<BaseSubscriber<Review>> slowConsumers = IntStream.range(0, streams)
+                .mapToObj(i -> reviewService.streamReviews(productId).subscribeWith(new BaseSubscriber<Review>() {
+                    @Override
+                    protected void hookOnSubscribe(Subscription subscription) {
+                        request(1);
+                    }
+
+                    @Override
+                    protected void hookOnNext(Review review) {
+                        firstReviews.countDown();
+                    }
+                }))
+                .toList();
+        try {
+            assertTrue(firstReviews.await(10, SECONDS));
+            assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections());
+
+            getAndVerifyReview(productId, OK).jsonPath("$.length()").isEqualTo(5);
+            postAndVerifyReview(productId, 6, OK);
+        } finally {
+            slowConsumers.forEach(BaseSubscriber::dispose);
+        }
+    }
+
+    @Test
+    void getReviewsByProductIds() {
+        postAndVerifyReview(1, 1, OK);
+        postAndVerifyReview(1, 2, OK);
+        postAndVerifyReview(2, 1, OK);
+
+        getAndVerifyReview("?productIds=1,2,213", OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$['1'].length()").isEqualTo(2)
+                .jsonPath("$['1'][1].reviewId").isEqualTo(2)
+                .jsonPath("$['2'].length()").isEqualTo(1)
+                .jsonPath("$['213']").doesNotExist();
+    }
+
+    @Test
+    void postAndGetReviewsAsSmile() {
+        client.post()
+                .uri("/review")
+                .contentType(SMILE)
+                .body(Mono.just(new Review(1, 1, "a", "s", "c", "SA")), Review.class)
+                .accept(SMILE)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectHeader().contentType(SMILE);
+
+        List<Review> reviews = client.get()
+                .uri("/review?productId=1")
+                .accept(SMILE, APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectHeader().contentType(SMILE)
+                .expectBodyList(Review.class)
+                .returnResult()
+                .getResponseBody();
+        assertEquals(1, reviews.size());
+        assertEquals("c", reviews.get(0).getContent());
+    }
+
+    @Test
+    void errorsStayJsonForSmileClients() {
+        client.get()
+                .uri("/review?productId=-1")
+                .accept(SMILE, APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(UNPROCESSABLE_ENTITY)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid productId: -1");
+    }
+
     @Test
     void duplicateError() {
         int productId = 1;
@@ -69,6 +262,36 @@ class ReviewServiceApplicationTests extends MysqlTestBase {
         assertEquals(1, repository.count());
     }
 
+    @Test
+    void createReviewsInABatch() {
+        List<Review> reviews = List.of(new Review(1, 1, "a", "s", "c", "SA"), new Review(1, 2, "a", "s", "c", "SA"),
+                new Review(2, 1, "a", "s", "c", "SA"));
+        client.post()
+                .uri("/review/batch")
+                .bodyValue(reviews)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[1].productId").isEqualTo(1)
+                .jsonPath("$[1].reviewId").isEqualTo(2)
+                .jsonPath("$[2].productId").isEqualTo(2);
+        assertEquals(3, repository.count());
+
+        // A batch with one duplicate creates none of its reviews
+        client.post()
+                .uri("/review/batch")
+                .bodyValue(List.of(new Review(3, 1, "a", "s", "c", "SA"), new Review(1, 1, "a", "s", "c", "SA")))
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$.path").isEqualTo("/review/batch")
+                .jsonPath("$.message").isEqualTo("Duplicate key in a batch of 2 reviews, none of them was created");
+        assertEquals(3, repository.count());
+    }
+
     @Test
     void delete() {
         int productId = 1;
@@ -77,10 +300,10 @@ class ReviewServiceApplicationTests extends MysqlTestBase {
         postAndVerifyReview(productId, reviewId, OK);
         assertEquals(1, repository.findByProductId(productId).size());
 
-        deleteAndVerifyReview(productId, OK);
+        deleteAndVerifyReview(productId, OK).jsonPath("$").isEqualTo(1);
         assertEquals(0, repository.findByProductId(productId).size());
 
-        deleteAndVerifyReview(productId, OK);
+        deleteAndVerifyReview(productId, OK).jsonPath("$").isEqualTo(0);
     }
 
     @Test
@@ -112,6 +335,19 @@ class ReviewServiceApplicationTests extends MysqlTestBase {
                 .jsonPath("$.message").isEqualTo("Invalid productId: " + productIdInvalid);
     }
 
+    private String getAndVerifyReviewPage(int productId, int pageSize, String pageToken, List<Integer> expectedIds) {
+        EntityExchangeResult<List<Review>> result = client.get()
+                .uri("/review?productId=" + productId + "&pageSize=" + pageSize
+                        + (pageToken == null ? "" : "&pageToken=" + pageToken))
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectBodyList(Review.class)
+                .returnResult();
+        assertEquals(expectedIds, result.getResponseBody().stream().map(Review::getReviewId).toList());
+        return result.getResponseHeaders().getFirst(PageToken.NEXT_PAGE_TOKEN_HEADER);
+    }
+
     private WebTestClient.BodyContentSpec getAndVerifyReview(int productId, HttpStatus expectedStatus) {
         return getAndVerifyReview("?productId=" + productId, expectedStatus);
     }
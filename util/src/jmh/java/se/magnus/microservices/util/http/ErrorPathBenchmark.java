@@ -0,0 +1,72 @@
+package se.magnus.microservices.util.http;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import se.magnus.microservices.api.exceptions.NotFoundException;
+
+/**
+ * 404s per millisecond: throwing the exception below a framework sized stack and
+ * rendering its error body. "before" throws an exception with a stack trace and
+ * serializes a new HttpErrorInfo with Jackson, as the handlers used to; "after" throws
+ * the stackless NotFoundException and renders the body with {@link HttpErrorBody}.
+ *
+ * Run with: ./gradlew :util:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ErrorPathBenchmark {
+
+    private static final String PATH = "/product/13";
+    private static final String MESSAGE = "No product found for productId: 13";
+
+    // Frames between the controller and the thread, a WebFlux or servlet request has about this many
+    @Param({ "100" })
+    int stackDepth;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Benchmark
+    public byte[] before() throws JsonProcessingException {
+        try {
+            throwAt(stackDepth, false);
+            throw new IllegalStateException();
+        } catch (RuntimeException e) {
+            return objectMapper.writeValueAsBytes(new HttpErrorInfo(HttpStatus.NOT_FOUND, PATH, e.getMessage()));
+        }
+    }
+
+    @Benchmark
+    public byte[] after() {
+        try {
+            throwAt(stackDepth, true);
+            throw new IllegalStateException();
+        } catch (NotFoundException e) {
+            return HttpErrorBody.render(HttpStatus.NOT_FOUND, PATH, e.getMessage());
+        }
+    }
+
+    private static int throwAt(int depth, boolean stackless) {
+        if (depth > 0) {
+            return throwAt(depth - 1, stackless) + 1;
+        }
+        // The exceptions used to fill in their stack trace like any RuntimeException
+        throw stackless ? new NotFoundException(MESSAGE) : new RuntimeException(MESSAGE);
+    }
+}
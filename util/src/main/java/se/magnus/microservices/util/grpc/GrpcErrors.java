@@ -0,0 +1,62 @@
+package se.magnus.microservices.util.grpc;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import reactor.core.publisher.Mono;
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+import se.magnus.microservices.api.exceptions.NotFoundException;
+
+/**
+ * Maps the API exceptions to gRPC status codes and back, the gRPC counterpart of
+ * the 404 and 422 responses of the REST API.
+ */
+public final class GrpcErrors {
+
+    private GrpcErrors() {
+    }
+
+    /**
+     * Completes the call with the value of the Mono, or with the status matching its error,
+     * without blocking the calling thread. Exceptions thrown while assembling the Mono are
+     * reported the same way.
+     */
+    public static <T> void respondAsync(StreamObserver<T> responseObserver, Supplier<Mono<T>> result) {
+        Mono.defer(result)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("No response")))
+                .subscribe(response -> {
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                }, e -> responseObserver.onError(toStatusException(e)));
+    }
+
+    public static StatusRuntimeException toStatusException(Throwable e) {
+        if (e instanceof NotFoundException) {
+            return Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof InvalidInputException) {
+            return Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof StatusRuntimeException statusException) {
+            return statusException;
+        }
+        if (e instanceof ResponseStatusException statusException
+                && statusException.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)) {
+            return Status.UNAVAILABLE.withDescription(statusException.getReason()).asRuntimeException();
+        }
+        return Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException();
+    }
+
+    public static RuntimeException fromStatusException(StatusRuntimeException e) {
+        return switch (e.getStatus().getCode()) {
+            case NOT_FOUND -> new NotFoundException(e.getStatus().getDescription());
+            case INVALID_ARGUMENT -> new InvalidInputException(e.getStatus().getDescription());
+            default -> e;
+        };
+    }
+}
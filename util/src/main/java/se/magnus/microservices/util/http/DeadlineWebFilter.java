@@ -0,0 +1,85 @@
+package se.magnus.microservices.util.http;
+
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Honors the remaining time budget that a caller sends in the {@value #BUDGET_HEADER} header.
+ * A request that arrives with no budget left is answered with 504 without being handled. A
+ * request that runs out of budget while being handled has its pipeline cancelled and is also
+ * answered with 504 if nothing has been written yet. Otherwise, e.g. for an NDJSON stream, the
+ * response is aborted, so that the caller does not take a cut off body for a complete one.
+ * Both cases are counted by the http.server.deadline.aborted counter, tagged with the stage
+ * of the abort.
+ */
+@Component
+public class DeadlineWebFilter implements WebFilter {
+
+    public static final String BUDGET_HEADER = "X-Request-Budget-Ms";
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeadlineWebFilter.class);
+
+    private final Counter expiredOnArrival;
+    private final Counter expiredWhileHandling;
+
+    public DeadlineWebFilter(MeterRegistry meterRegistry) {
+        expiredOnArrival = abortCounter(meterRegistry, "arrival");
+        expiredWhileHandling = abortCounter(meterRegistry, "handling");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String budget = exchange.getRequest().getHeaders().getFirst(BUDGET_HEADER);
+        if (budget == null) {
+            return chain.filter(exchange);
+        }
+
+        long budgetMs;
+        try {
+            budgetMs = Long.parseLong(budget);
+        } catch (NumberFormatException e) {
+            LOG.debug("Ignoring malformed {} header: {}", BUDGET_HEADER, budget);
+            return chain.filter(exchange);
+        }
+
+        if (budgetMs <= 0) {
+            expiredOnArrival.increment();
+            LOG.debug("Deadline already passed on arrival, skipping {}", exchange.getRequest().getPath());
+            exchange.getResponse().setStatusCode(GATEWAY_TIMEOUT);
+            return exchange.getResponse().setComplete();
+        }
+
+        return chain.filter(exchange)
+                .timeout(Duration.ofMillis(budgetMs))
+                .onErrorResume(TimeoutException.class, e -> {
+                    expiredWhileHandling.increment();
+                    LOG.debug("Deadline passed while handling {}, cancelled", exchange.getRequest().getPath());
+                    if (exchange.getResponse().isCommitted()) {
+                        // Too late for a status, the server closes the connection on the error
+                        return Mono.error(e);
+                    }
+                    exchange.getResponse().setStatusCode(GATEWAY_TIMEOUT);
+                    return exchange.getResponse().setComplete();
+                });
+    }
+
+    private static Counter abortCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("http.server.deadline.aborted")
+                .description("Requests aborted because the caller's deadline had passed")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package se.magnus.microservices.util.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Strong entity tags derived from the @Version counters of stored entities, so a
+ * conditional GET can be answered before anything is mapped or serialized. A tag
+ * covers the database id next to the version, an entity that is deleted and
+ * created again starts over at the same version under a new id.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @return the quoted entity tag of a single entity
+     */
+    public static String of(Object id, Object version) {
+        return of(id + ":" + version);
+    }
+
+    /**
+     * @return the quoted entity tag of a list of entities, it changes when an entity
+     *         is added, removed or updated
+     */
+    public static <T> String of(List<T> entities, Function<T, ?> id, Function<T, ?> version) {
+        StringBuilder state = new StringBuilder(entities.size() * 16);
+        for (T entity : entities) {
+            state.append(id.apply(entity)).append(':').append(version.apply(entity)).append(',');
+        }
+        return of(state);
+    }
+
+    /**
+     * @param state everything the representation depends on, apart from the instance that renders it
+     * @return the quoted entity tag of the state
+     */
+    public static String of(CharSequence state) {
+        return '"' + DigestUtils.md5DigestAsHex(state.toString().getBytes(UTF_8)) + '"';
+    }
+}
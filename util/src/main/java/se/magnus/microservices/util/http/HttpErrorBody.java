@@ -0,0 +1,71 @@
+package se.magnus.microservices.util.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * Renders the JSON of an {@link HttpErrorInfo} without building one. The status and
+ * error fields of every status are formatted once, the timestamp once a second, so an
+ * error costs little more than escaping its path and message. Clients read the body
+ * back as an HttpErrorInfo.
+ */
+public final class HttpErrorBody {
+
+    private static final Map<HttpStatus, String> STATUS_FIELDS = new EnumMap<>(HttpStatus.class);
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            STATUS_FIELDS.put(status,
+                    ",\"status\":" + status.value() + ",\"error\":\"" + status.getReasonPhrase() + "\"");
+        }
+    }
+
+    private record Timestamp(long epochSecond, String formatted) {
+    }
+
+    private static volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, null);
+
+    private HttpErrorBody() {
+    }
+
+    public static byte[] render(HttpStatus status, String path, String message) {
+        int length = 128 + path.length() + (message == null ? 0 : message.length());
+        StringBuilder json = new StringBuilder(length)
+                .append("{\"timestamp\":\"").append(timestamp()).append("\",\"path\":");
+        appendString(json, path);
+        json.append(STATUS_FIELDS.get(status)).append(",\"message\":");
+        appendString(json, message);
+        return json.append('}').toString().getBytes(UTF_8);
+    }
+
+    private static String timestamp() {
+        long epochSecond = System.currentTimeMillis() / 1000;
+        Timestamp current = timestamp;
+        if (current.epochSecond() != epochSecond) {
+            // Racing threads format the same second, either result may be kept
+            current = new Timestamp(epochSecond, DateTimeFormatter.ISO_OFFSET_DATE_TIME
+                    .format(Instant.ofEpochSecond(epochSecond).atOffset(ZoneOffset.UTC)));
+            timestamp = current;
+        }
+        return current.formatted();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        JsonStringEncoder.getInstance().quoteAsString(value, json);
+        json.append('"');
+    }
+}
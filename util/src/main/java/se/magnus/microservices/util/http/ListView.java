@@ -0,0 +1,39 @@
+package se.magnus.microservices.util.http;
+
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+
+/**
+ * The view a list of recommendations or reviews is returned in: full, the default,
+ * or summary. A summary leaves out the free text content of each item, it is read
+ * with a projection so the content is neither read from the database nor mapped.
+ * The content of an item is available from the item itself.
+ */
+public final class ListView {
+
+    public static final String FULL = "full";
+    public static final String SUMMARY = "summary";
+
+    private ListView() {
+    }
+
+    /**
+     * @param view full or summary
+     * @return true for summary
+     * @throws InvalidInputException for any other value
+     */
+    public static boolean isSummary(String view) {
+        return switch (view) {
+            case FULL -> false;
+            case SUMMARY -> true;
+            default -> throw new InvalidInputException("Invalid view: " + view + ", expected full or summary");
+        };
+    }
+
+    /**
+     * @param eTag the entity tag of the items of a list
+     * @return the entity tag of the summary of the list, a cached summary must not pass for the full list
+     */
+    public static String summaryETag(String eTag) {
+        return ETags.of(SUMMARY + ":" + eTag);
+    }
+}
@@ -0,0 +1,55 @@
+package se.magnus.microservices.util.http;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.util.Base64;
+
+import se.magnus.microservices.api.exceptions.InvalidInputException;
+
+/**
+ * Opaque continuation token of a keyset paginated list: the productId of the
+ * list and the id of the last item of the previous page. The next page starts
+ * after that id, so it is read from the (productId, id) index like the first one.
+ * A token continues the list in the order it was requested with.
+ */
+public final class PageToken {
+
+    public static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private PageToken() {
+    }
+
+    /**
+     * @param order asc or desc, the direction the ids of a paginated list are read in
+     * @return true for desc
+     * @throws InvalidInputException for any other value
+     */
+    public static boolean isDescending(String order) {
+        return switch (order) {
+            case "asc" -> false;
+            case "desc" -> true;
+            default -> throw new InvalidInputException("Invalid order: " + order + ", expected asc or desc");
+        };
+    }
+
+    public static String encode(int productId, int lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((productId + ":" + lastId).getBytes(US_ASCII));
+    }
+
+    /**
+     * @return the id of the last item of the previous page
+     * @throws InvalidInputException if the token is malformed or belongs to another product
+     */
+    public static int decode(String token, int productId) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), US_ASCII).split(":");
+            if (parts.length == 2 && Integer.parseInt(parts[0]) == productId) {
+                return Integer.parseInt(parts[1]);
+            }
+        } catch (IllegalArgumentException e) {
+            // Falls through to the exception below, NumberFormatException included
+        }
+        throw new InvalidInputException("Invalid pageToken: " + token);
+    }
+}
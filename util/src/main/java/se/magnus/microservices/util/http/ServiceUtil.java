@@ -9,19 +9,14 @@ import org.springframework.stereotype.Component;
 @Component
 public class ServiceUtil {
 
-    private final String port;
-
-    private String serviceAddress = null;
+    // Resolved up front, the host lookup must not run on an event loop thread
+    private final String serviceAddress;
 
     public ServiceUtil(@Value("${server.port}") String port) {
-
-        this.port = port;
+        this.serviceAddress = findMyHostname() + "/" + findMyIpAddress() + ":" + port;
     }
 
     public String getServiceAddress() {
-        if (serviceAddress == null) {
-            serviceAddress = findMyHostname() + "/" + findMyIpAddress() + ":" + port;
-        }
         return serviceAddress;
     }
 
@@ -0,0 +1,67 @@
+package se.magnus.microservices.util.test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Mono;
+
+/**
+ * Installs BlockHound and collects every blocking call it reports on a non-blocking thread,
+ * an event loop of the server, of a reactive driver or of a Reactor scheduler. BlockHound is
+ * installed once per JVM, the first install decides what is allowed and what is blocking.
+ */
+public final class BlockingCalls {
+
+    private static final List<String> calls = new CopyOnWriteArrayList<>();
+
+    private BlockingCalls() {
+    }
+
+    public static void install() {
+        install(builder -> {
+        });
+    }
+
+    /**
+     * @param customizer marks the calls of a service's dependencies as blocking or allowed
+     */
+    public static void install(Consumer<BlockHound.Builder> customizer) {
+        BlockHound.install(builder -> {
+            // The console appender writes synchronously, logging is set up per environment
+            builder.allowBlockingCallsInside("ch.qos.logback.core.OutputStreamAppender", "subAppend")
+                    .blockingMethodCallback(method -> calls.add(method + " on " + Thread.currentThread().getName()));
+            customizer.accept(builder);
+        });
+    }
+
+    /**
+     * @return the blocking calls reported since the last clear
+     */
+    public static List<String> get() {
+        return List.copyOf(calls);
+    }
+
+    public static void clear() {
+        calls.clear();
+    }
+
+    /**
+     * @return true if a sleep on a parallel scheduler thread is reported, i.e. BlockHound is installed
+     */
+    public static boolean detectsBlockingCall() {
+        int before = calls.size();
+        Mono.delay(Duration.ofMillis(1)).doOnNext(it -> sleep()).block();
+        return calls.size() > before;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package se.magnus.microservices.util.test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Sends requests to a service at a fixed concurrency, one connection per concurrent request,
+ * and counts the statuses of the responses.
+ */
+public class LoadDriver implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadDriver.class);
+
+    private final int concurrency;
+    private final ConnectionProvider connectionProvider;
+    private final WebClient client;
+
+    public LoadDriver(int port, int concurrency) {
+        this.concurrency = concurrency;
+        connectionProvider = ConnectionProvider.builder("load-driver").maxConnections(concurrency).build();
+        client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+    }
+
+    public WebClient client() {
+        return client;
+    }
+
+    /**
+     * Sends one request per element, and logs the throughput.
+     *
+     * @return the number of responses per status
+     */
+    public Map<HttpStatus, Long> run(Flux<Integer> requests, Function<Integer, Mono<HttpStatus>> request) {
+        long start = System.nanoTime();
+        Map<HttpStatus, Long> statuses = requests.flatMap(request, concurrency)
+                .collectList()
+                .block()
+                .stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        long count = statuses.values().stream().mapToLong(Long::longValue).sum();
+        LOG.info("{} requests at a concurrency of {} in {} ms, {} requests/s", count, concurrency,
+                elapsed.toMillis(), count * 1000L / Math.max(1, elapsed.toMillis()));
+        return statuses;
+    }
+
+    /**
+     * @return the status of the response, its body is released unread
+     */
+    public static Mono<HttpStatus> exchange(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(
+                response -> response.releaseBody().thenReturn(HttpStatus.valueOf(response.statusCode().value())));
+    }
+
+    @Override
+    public void close() {
+        connectionProvider.dispose();
+    }
+}